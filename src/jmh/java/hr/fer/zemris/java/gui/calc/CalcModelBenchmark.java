@@ -0,0 +1,66 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of digit entry, value setting and listener notification in {@link CalcModelImpl}.
+ * @author MatijaPav
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CalcModelBenchmark {
+    /**
+     * Number of digits entered per operation.
+     */
+    @Param({"4", "15", "30"})
+    public int digits;
+
+    /**
+     * Number of registered listeners.
+     */
+    @Param({"0", "1", "8"})
+    public int listeners;
+
+    private CalcModelImpl model;
+
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole){
+        this.blackhole = blackhole;
+        this.model = new CalcModelImpl();
+        for(int i = 0; i < listeners; i++)
+            model.addCalcValueListener(m -> this.blackhole.consume(m));
+    }
+
+    @Benchmark
+    public double insertDigit(){
+        model.clear();
+        for(int i = 0; i < digits; i++)
+            model.insertDigit((i % 9) + 1);
+        return model.getValue();
+    }
+
+    @Benchmark
+    public double setValue(){
+        for(int i = 0; i < digits; i++)
+            model.setValue(i * 1.5);
+        return model.getValue();
+    }
+}
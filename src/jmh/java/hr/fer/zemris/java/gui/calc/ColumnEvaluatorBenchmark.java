@@ -0,0 +1,90 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleBinaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link ColumnEvaluator} on columns of {@value #LENGTH} elements. Scores are in elements
+ * per second, as each invocation counts as one operation per element.
+ * @author MatijaPav
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ColumnEvaluatorBenchmark {
+    /**
+     * Number of elements of a column.
+     */
+    static final int LENGTH = 1 << 20;
+
+    /**
+     * Label of the applied function or operation; {@code lambda} is an addition unknown to the evaluator.
+     */
+    @Param({"+", "*", "/", "1/x", "sin", "x^n", "lambda"})
+    public String operation;
+
+    /**
+     * Number of worker threads.
+     */
+    @Param({"1", "4"})
+    public int threads;
+
+    private ForkJoinPool pool;
+
+    private ColumnEvaluator evaluator;
+
+    private double[] left;
+
+    private double[] right;
+
+    private double[] out;
+
+    private CalcFunction function;
+
+    private DoubleBinaryOperator operator;
+
+    @Setup
+    public void setup(){
+        pool = new ForkJoinPool(threads);
+        evaluator = new ColumnEvaluator(pool);
+        Random random = new Random(42);
+        left = random.doubles(LENGTH, 0.5, 2).toArray();
+        right = random.doubles(LENGTH, 0.5, 2).toArray();
+        out = new double[LENGTH];
+        function = CalcFunction.forLabel(operation);
+        operator = operation.equals("lambda") ? (l, r) -> l + r : CalcOperator.forLabel(operation);
+    }
+
+    @TearDown
+    public void tearDown(){
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public double[] apply(){
+        if(function != null)
+            evaluator.apply(function, left, out);
+        else
+            evaluator.apply(operator, left, right, out);
+        return out;
+    }
+}
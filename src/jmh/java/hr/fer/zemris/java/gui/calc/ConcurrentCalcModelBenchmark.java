@@ -0,0 +1,161 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleBinaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of a model shared by one writer entering digits and three readers displaying the value,
+ * comparing {@link ConcurrentCalcModel} with {@link CalcModelImpl} behind a synchronized wrapper.
+ * @author MatijaPav
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ConcurrentCalcModelBenchmark {
+    /**
+     * Implementation of the shared model.
+     */
+    @Param({"concurrent", "synchronized"})
+    public String model;
+
+    private CalcModel shared;
+
+    private int digits;
+
+    @Setup
+    public void setup(){
+        this.shared = model.equals("concurrent") ? new ConcurrentCalcModel()
+            : new SynchronizedCalcModel(new CalcModelImpl());
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(1)
+    public double write(){
+        if(++digits > 15){
+            shared.clear();
+            digits = 0;
+        }
+        shared.insertDigit(digits % 9 + 1);
+        return shared.getValue();
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(3)
+    public String read(){
+        return shared.toString();
+    }
+
+    /**
+     * Model which synchronizes every call on the wrapped model.
+     */
+    static final class SynchronizedCalcModel implements CalcModel {
+        private final CalcModel model;
+
+        SynchronizedCalcModel(CalcModel model){
+            this.model = model;
+        }
+
+        @Override
+        public synchronized void addCalcValueListener(CalcValueListener l) {
+            model.addCalcValueListener(l);
+        }
+
+        @Override
+        public synchronized void removeCalcValueListener(CalcValueListener l) {
+            model.removeCalcValueListener(l);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return model.toString();
+        }
+
+        @Override
+        public synchronized double getValue() {
+            return model.getValue();
+        }
+
+        @Override
+        public synchronized void setValue(double value) {
+            model.setValue(value);
+        }
+
+        @Override
+        public synchronized boolean isEditable() {
+            return model.isEditable();
+        }
+
+        @Override
+        public synchronized void clear() {
+            model.clear();
+        }
+
+        @Override
+        public synchronized void clearAll() {
+            model.clearAll();
+        }
+
+        @Override
+        public synchronized void swapSign() {
+            model.swapSign();
+        }
+
+        @Override
+        public synchronized void insertDecimalPoint() {
+            model.insertDecimalPoint();
+        }
+
+        @Override
+        public synchronized void insertDigit(int digit) {
+            model.insertDigit(digit);
+        }
+
+        @Override
+        public synchronized boolean isActiveOperandSet() {
+            return model.isActiveOperandSet();
+        }
+
+        @Override
+        public synchronized double getActiveOperand() {
+            return model.getActiveOperand();
+        }
+
+        @Override
+        public synchronized void setActiveOperand(double activeOperand) {
+            model.setActiveOperand(activeOperand);
+        }
+
+        @Override
+        public synchronized void clearActiveOperand() {
+            model.clearActiveOperand();
+        }
+
+        @Override
+        public synchronized DoubleBinaryOperator getPendingBinaryOperation() {
+            return model.getPendingBinaryOperation();
+        }
+
+        @Override
+        public synchronized void setPendingBinaryOperation(DoubleBinaryOperator op) {
+            model.setPendingBinaryOperation(op);
+        }
+    }
+}
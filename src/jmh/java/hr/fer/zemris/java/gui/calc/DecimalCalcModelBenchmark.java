@@ -0,0 +1,56 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of a keystroke program executed on {@link DecimalCalcModel} compared with {@link CalcModelImpl}.
+ * @author MatijaPav
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DecimalCalcModelBenchmark {
+    /**
+     * Model executing the program.
+     */
+    @Param({"double", "decimal"})
+    public String engine;
+
+    /**
+     * Operands of the program; {@code long} ones exceed the range of compact decimals.
+     */
+    @Param({"short", "long"})
+    public String operands;
+
+    private CalcSession session;
+
+    private CalcProgram program;
+
+    @Setup
+    public void setup(){
+        this.session = new CalcSession(engine.equals("decimal") ? new DecimalCalcModel() : new CalcModelImpl());
+        this.program = CalcProgram.compile(operands.equals("short")
+            ? "reset 123.45 + 678.9 * 3 - 0.25 / 4 ="
+            : "reset 123456789012345678901.5 + 678.9 * 31415926535897932384 - 0.25 / 4 =");
+    }
+
+    @Benchmark
+    public double execute(){
+        session.execute(program);
+        return session.getModel().getValue();
+    }
+}
@@ -0,0 +1,70 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link CalcFunction#SIN} applied directly and through a {@link FunctionCache} of 1024
+ * results, to arguments drawn from a set of {@code distinct} values.
+ * @author MatijaPav
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FunctionCacheBenchmark {
+    /**
+     * Number of distinct arguments.
+     */
+    @Param({"64", "4096"})
+    public int distinct;
+
+    /**
+     * Applied function; {@code direct} doesn't cache.
+     */
+    @Param({"direct", "cached"})
+    public String function;
+
+    private DoubleUnaryOperator operator;
+
+    private double[] arguments;
+
+    private int next;
+
+    @Setup
+    public void setup(){
+        operator = function.equals("cached") ? new FunctionCache(CalcFunction.SIN, 1024) : CalcFunction.SIN;
+        Random random = new Random(42);
+        double[] values = random.doubles(distinct, -1E6, 1E6).toArray();
+        arguments = new double[1 << 16];
+        for(int i = 0; i < arguments.length; i++)
+            arguments[i] = values[random.nextInt(distinct)];
+    }
+
+    @TearDown
+    public void tearDown(){
+        if(operator instanceof FunctionCache)
+            System.out.println(operator);
+    }
+
+    @Benchmark
+    public double apply(){
+        next = (next + 1) & (arguments.length - 1);
+        return operator.applyAsDouble(arguments[next]);
+    }
+}
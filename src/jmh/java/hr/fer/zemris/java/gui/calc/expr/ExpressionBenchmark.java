@@ -0,0 +1,74 @@
+package hr.fer.zemris.java.gui.calc.expr;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of repeated evaluation of a compiled {@link Expression} with changing variables, either by
+ * the interpreter or by the code compiled into a hidden class.
+ * @author MatijaPav
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ExpressionBenchmark {
+    /**
+     * Evaluation tier; {@code interpreted} bypasses the automatic promotion.
+     */
+    @Param({"interpreted", "compiled"})
+    public String tier;
+
+    /**
+     * Evaluated expression; {@code arithmetic} spends its time in the evaluator, {@code trig} in the functions.
+     */
+    @Param({"arithmetic", "trig"})
+    public String source;
+
+    private Expression expression;
+
+    private boolean interpreted;
+
+    private double[] values;
+
+    private double[] stack;
+
+    @Setup
+    public void setup(){
+        this.expression = Expression.compile(source(), "x", "y");
+        this.interpreted = tier.equals("interpreted");
+        this.values = new double[] {0.5, 3};
+        this.stack = new double[expression.getMaxDepth()];
+        if(!interpreted && !expression.promote())
+            throw new IllegalStateException("Expression wasn't compiled!");
+    }
+
+    @Benchmark
+    public double evaluate(){
+        values[0] += 1E-3;
+        return interpreted ? expression.interpret(values, stack) : expression.evaluate(values, stack);
+    }
+
+    @Benchmark
+    public double compile(){
+        return Expression.compile(source(), "x", "y").getMaxDepth();
+    }
+
+    private String source(){
+        return source.equals("trig")
+            ? "sin(x)^2 + cos(x)^2 * y / (1 + x) - 2 * pi"
+            : "x * x * y - 3 * x * y + 2 * y / (1 + x) - (x - y) * (x + y) / 4";
+    }
+}
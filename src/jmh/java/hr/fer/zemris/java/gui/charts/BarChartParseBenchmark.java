@@ -0,0 +1,59 @@
+package hr.fer.zemris.java.gui.charts;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of reading a chart description file in {@link BarChartDemo}.
+ * @author MatijaPav
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BarChartParseBenchmark {
+    /**
+     * Number of points in the chart file.
+     */
+    @Param({"10", "1000", "100000"})
+    public int points;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder values = new StringBuilder();
+        for(int i = 1; i <= points; i++)
+            values.append(i).append(',').append(i % 20 + 2).append(' ');
+        file = Files.createTempFile("barchart", ".txt");
+        Files.write(file, List.of("Number of people in the car", "Frequency",
+            values.toString().trim(), "0", "22", "2"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public BarChart createChart(){
+        return BarChartDemo.createChart(file);
+    }
+}
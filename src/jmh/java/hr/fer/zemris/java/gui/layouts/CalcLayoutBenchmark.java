@@ -0,0 +1,67 @@
+package hr.fer.zemris.java.gui.layouts;
+
+import java.awt.Dimension;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of laying out a panel managed by {@link CalcLayout}.
+ * @author MatijaPav
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CalcLayoutBenchmark {
+    /**
+     * Number of components in the panel.
+     */
+    @Param({"6", "18", "31"})
+    public int components;
+
+    private CalcLayout layout;
+
+    private JPanel panel;
+
+    @Setup
+    public void setup(){
+        layout = new CalcLayout(3);
+        panel = new JPanel(layout);
+        panel.add(new JButton("display"), RCPosition.of(1, 1));
+        int added = 1;
+        for(int r = 1; r <= CalcLayout.ROWS && added < components; r++){
+            for(int c = 1; c <= CalcLayout.COLUMNS && added < components; c++){
+                if(r == 1 && c < 6)
+                    continue;
+                panel.add(new JButton(r + "," + c), RCPosition.of(r, c));
+                added++;
+            }
+        }
+        panel.setSize(750, 500);
+    }
+
+    @Benchmark
+    public JPanel layoutContainer(){
+        layout.layoutContainer(panel);
+        return panel;
+    }
+
+    @Benchmark
+    public Dimension layoutSize(){
+        return layout.preferredLayoutSize(panel);
+    }
+}
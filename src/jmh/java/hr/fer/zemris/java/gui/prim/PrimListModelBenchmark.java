@@ -0,0 +1,39 @@
+package hr.fer.zemris.java.gui.prim;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of prime generation in {@link PrimListModel}.
+ * @author MatijaPav
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PrimListModelBenchmark {
+    /**
+     * Number of primes generated per operation.
+     */
+    @Param({"1000", "10000"})
+    public int primes;
+
+    @Benchmark
+    public PrimListModel next(){
+        PrimListModel model = new PrimListModel();
+        for(int i = 0; i < primes; i++)
+            model.next();
+        return model;
+    }
+}
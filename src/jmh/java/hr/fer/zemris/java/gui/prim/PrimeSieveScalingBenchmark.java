@@ -0,0 +1,80 @@
+package hr.fer.zemris.java.gui.prim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of the parallel segmented sieve with the number of worker threads.
+ * {@link #countPrimes(Limit)} counts primes up to a limit without storing them, and its throughput in
+ * numbers per second is {@code limit} divided by the measured time. {@link #ensureCount(Count)} generates
+ * and stores primes in a new {@link PrimeSieve}, as the GUI does.
+ * @author MatijaPav
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PrimeSieveScalingBenchmark {
+    /**
+     * Number of worker threads.
+     */
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    private ForkJoinPool pool;
+
+    /**
+     * Largest counted number.
+     */
+    @State(Scope.Benchmark)
+    public static class Limit {
+        @Param({"100000000", "1000000000", "10000000000"})
+        public long limit;
+    }
+
+    /**
+     * Number of generated primes.
+     */
+    @State(Scope.Benchmark)
+    public static class Count {
+        @Param({"1000000", "10000000", "50000000"})
+        public int count;
+    }
+
+    @Setup
+    public void setup(){
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown(){
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long countPrimes(Limit limit){
+        return PrimeSieve.countPrimes(limit.limit, pool);
+    }
+
+    @Benchmark
+    public int ensureCount(Count count){
+        PrimeSieve sieve = new PrimeSieve(pool);
+        sieve.ensureCount(count.count);
+        return sieve.size();
+    }
+
+}
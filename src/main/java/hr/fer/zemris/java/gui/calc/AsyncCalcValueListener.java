@@ -0,0 +1,266 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Listener which forwards notifications to a slow {@link CalcValueListener} on an {@link Executor},
+ * so that the thread changing the model doesn't wait for it. Notifications arriving while one is
+ * still pending are coalesced.
+ * <p>
+ * Models aren't required to be thread safe, so the delegate doesn't get the model itself. The state
+ * of the model is copied on the thread which changed it into reused buffers, without allocating, and
+ * the delegate gets an immutable snapshot of the last copied state, whose mutators throw
+ * {@link UnsupportedOperationException}. The snapshot is built once per delivered notification, so
+ * coalesced changes don't create one each.
+ * @author MatijaPav
+ */
+public class AsyncCalcValueListener implements CalcValueListener {
+    /**
+     * Listener notified on the executor.
+     */
+    private final CalcValueListener delegate;
+
+    /**
+     * Executor on which the delegate is notified.
+     */
+    private final Executor executor;
+
+    /**
+     * Indicates if a notification has been submitted to the executor and hasn't started yet.
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    /**
+     * Guards the state of the model copied on the last change.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Displayed text of the model after the last change.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Value of the model after the last change.
+     */
+    private double value;
+
+    /**
+     * Editability of the model after the last change.
+     */
+    private boolean editable;
+
+    /**
+     * Indicates if the active operand of the model was set after the last change.
+     */
+    private boolean operandSet;
+
+    /**
+     * Active operand of the model after the last change, valid while {@link #operandSet} is set.
+     */
+    private double activeOperand;
+
+    /**
+     * Pending operation of the model after the last change.
+     */
+    private DoubleBinaryOperator pendingOperation;
+
+    /**
+     * Task notifying the delegate, reused for every notification.
+     */
+    private final Runnable notification = this::notifyDelegate;
+
+    /**
+     * Creates an {@code AsyncCalcValueListener}.
+     * @param delegate listener notified on the executor.
+     * @param executor executor on which the delegate is notified.
+     */
+    public AsyncCalcValueListener(CalcValueListener delegate, Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate, "Listener can't be null!");
+        this.executor = Objects.requireNonNull(executor, "Executor can't be null!");
+    }
+
+    /**
+     * @return Listener notified on the executor.
+     */
+    public CalcValueListener getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void valueChanged(CalcModel model) {
+        synchronized(lock) {
+            text.setLength(0);
+            model.appendTo(text);
+            value = model.getValue();
+            editable = model.isEditable();
+            operandSet = model.isActiveOperandSet();
+            activeOperand = operandSet ? model.getActiveOperand() : 0;
+            pendingOperation = model.getPendingBinaryOperation();
+        }
+        if(pending.compareAndSet(false, true))
+            executor.execute(notification);
+    }
+
+    /**
+     * Notifies the delegate of the last change. The pending flag is cleared first, so changes made
+     * while the delegate runs are not lost.
+     */
+    private void notifyDelegate() {
+        pending.set(false);
+        Snapshot snapshot;
+        synchronized(lock) {
+            snapshot = new Snapshot(text.toString(), value, editable, operandSet, activeOperand,
+                    pendingOperation);
+        }
+        delegate.valueChanged(snapshot);
+    }
+
+    /**
+     * Immutable copy of the observable state of a model.
+     */
+    private static final class Snapshot implements CalcModel {
+        /**
+         * Displayed text.
+         */
+        private final String text;
+
+        /**
+         * Current value.
+         */
+        private final double value;
+
+        /**
+         * Indicates the editability of the model.
+         */
+        private final boolean editable;
+
+        /**
+         * Indicates if the active operand is set.
+         */
+        private final boolean operandSet;
+
+        /**
+         * Active operand, valid while {@link #operandSet} is set.
+         */
+        private final double activeOperand;
+
+        /**
+         * Pending operation.
+         */
+        private final DoubleBinaryOperator pendingOperation;
+
+        /**
+         * Creates a {@code Snapshot} of the given state.
+         * @param text displayed text.
+         * @param value current value.
+         * @param editable editability of the model.
+         * @param operandSet indicates if the active operand is set.
+         * @param activeOperand active operand, ignored unless {@code operandSet} is set.
+         * @param pendingOperation pending operation.
+         */
+        Snapshot(String text, double value, boolean editable, boolean operandSet,
+                double activeOperand, DoubleBinaryOperator pendingOperation) {
+            this.text = text;
+            this.value = value;
+            this.editable = editable;
+            this.operandSet = operandSet;
+            this.activeOperand = activeOperand;
+            this.pendingOperation = pendingOperation;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+
+        @Override
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean isEditable() {
+            return editable;
+        }
+
+        @Override
+        public boolean isActiveOperandSet() {
+            return operandSet;
+        }
+
+        @Override
+        public double getActiveOperand() throws IllegalStateException {
+            if(!operandSet)
+                throw new IllegalStateException("Active operand is not set!");
+            return activeOperand;
+        }
+
+        @Override
+        public DoubleBinaryOperator getPendingBinaryOperation() {
+            return pendingOperation;
+        }
+
+        @Override
+        public void addCalcValueListener(CalcValueListener l) {
+            throw unsupported();
+        }
+
+        @Override
+        public void removeCalcValueListener(CalcValueListener l) {
+            throw unsupported();
+        }
+
+        @Override
+        public void setValue(double value) {
+            throw unsupported();
+        }
+
+        @Override
+        public void clear() {
+            throw unsupported();
+        }
+
+        @Override
+        public void clearAll() {
+            throw unsupported();
+        }
+
+        @Override
+        public void swapSign() {
+            throw unsupported();
+        }
+
+        @Override
+        public void insertDecimalPoint() {
+            throw unsupported();
+        }
+
+        @Override
+        public void insertDigit(int digit) {
+            throw unsupported();
+        }
+
+        @Override
+        public void setActiveOperand(double activeOperand) {
+            throw unsupported();
+        }
+
+        @Override
+        public void clearActiveOperand() {
+            throw unsupported();
+        }
+
+        @Override
+        public void setPendingBinaryOperation(DoubleBinaryOperator op) {
+            throw unsupported();
+        }
+
+        private static UnsupportedOperationException unsupported() {
+            return new UnsupportedOperationException("Snapshot of a model can't be changed!");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * Reads lines from a {@link Reader} through a fixed buffer, so that memory use doesn't depend on the
+ * input. Lines longer than the limit are skipped instead of being read into memory. Lines are terminated
+ * by {@code \n}, {@code \r\n} or the end of input.
+ * @author MatijaPav
+ */
+final class BoundedLineReader implements Closeable {
+    /**
+     * Size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * Source of characters.
+     */
+    private final Reader in;
+
+    /**
+     * Longest accepted line.
+     */
+    private final int maxLength;
+
+    /**
+     * Characters read from the source.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * Index of the next unconsumed character in the buffer.
+     */
+    private int position;
+
+    /**
+     * Number of valid characters in the buffer.
+     */
+    private int limit;
+
+    /**
+     * Characters of the current line, reused between lines.
+     */
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * Indicates if the current line is longer than the limit.
+     */
+    private boolean tooLong;
+
+    /**
+     * Number of the current line, starting from 1.
+     */
+    private long lineNumber;
+
+    /**
+     * Creates a reader.
+     * @param in source of characters.
+     * @param maxLength longest accepted line.
+     */
+    BoundedLineReader(Reader in, int maxLength){
+        this.in = Objects.requireNonNull(in, "Reader can't be null!");
+        if(maxLength < 1)
+            throw new IllegalArgumentException("Maximal line length must be positive!");
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Reads the next line.
+     * @return {@code false} if there are no more lines.
+     * @throws IOException if reading fails.
+     */
+    boolean next() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        boolean any = false;
+        while(true){
+            if(position == limit){
+                limit = in.read(buffer);
+                position = 0;
+                if(limit <= 0){
+                    limit = 0;
+                    break;
+                }
+            }
+            any = true;
+            int start = position;
+            while(position < limit && buffer[position] != '\n')
+                position++;
+            append(start, position);
+            if(position < limit){
+                position++;
+                break;
+            }
+        }
+        if(!any)
+            return false;
+        int length = line.length();
+        if(length > 0 && line.charAt(length - 1) == '\r')
+            line.setLength(length - 1);
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * Appends characters of the buffer to the current line, unless the line is already too long.
+     */
+    private void append(int from, int to){
+        if(tooLong)
+            return;
+        // one more character is allowed for the '\r' of a "\r\n" terminator
+        if(line.length() + to - from > maxLength + 1){
+            tooLong = true;
+            line.setLength(0);
+            return;
+        }
+        line.append(buffer, from, to - from);
+    }
+
+    /**
+     * @return current line without its terminator, or {@code null} if it is longer than the limit.
+     */
+    String line() {
+        if(tooLong || line.length() > maxLength)
+            return null;
+        return line.toString();
+    }
+
+    /**
+     * @return number of the current line, starting from 1.
+     */
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return {@code true} if the next line can be read at least partially without blocking.
+     * @throws IOException if the source fails.
+     */
+    boolean ready() throws IOException {
+        return position < limit || in.ready();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
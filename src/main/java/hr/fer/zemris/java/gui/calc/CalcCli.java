@@ -0,0 +1,237 @@
+package hr.fer.zemris.java.gui.calc;
+
+import hr.fer.zemris.java.gui.calc.expr.Expression;
+import hr.fer.zemris.java.gui.calc.expr.ExpressionException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Command line calculator which evaluates its input line by line and writes one result line per input
+ * line as it goes, so arbitrarily large inputs are processed in constant memory.
+ * <pre>
+ * CalcCli [--keys | --expr | --csv EXPRESSION] [--decimal] [--cache N] [--max-line N] [FILE]
+ * </pre>
+ * <ul>
+ *     <li>{@code --keys} (default): each line is a {@link CalcProgram} executed on a cleared calculator
+ *     with an empty stack, and the result is the text on its display.
+ *     {@code --decimal} uses a {@link DecimalCalcModel}, and {@code --cache N} caches {@code N} results
+ *     of each function, see {@link CalcSession#setFunctionCacheCapacity(int)}.</li>
+ *     <li>{@code --expr}: each line is an {@link Expression} without variables.</li>
+ *     <li>{@code --csv EXPRESSION}: the first line is a comma separated header naming the variables of the
+ *     expression, and each following line a row of their values. Rows are written back with the value of
+ *     the expression appended as a new column. Fields can't be quoted.</li>
+ * </ul>
+ * Input is read from the file, or from the standard input if there is no file or it is {@code -}. Lines
+ * which can't be evaluated, or which are longer than {@code N} characters, produce {@code NaN} and are
+ * reported on the standard error output.
+ * @author MatijaPav
+ */
+public class CalcCli {
+    /**
+     * Default longest accepted line.
+     */
+    static final int DEFAULT_MAX_LINE = 1 << 16;
+
+    /**
+     * Evaluation modes.
+     */
+    enum Mode {
+        KEYS, EXPR, CSV
+    }
+
+    /**
+     * Evaluation mode.
+     */
+    private final Mode mode;
+
+    /**
+     * Session executing keystroke lines.
+     */
+    private final CalcSession session;
+
+    /**
+     * Expression evaluated for each row in {@link Mode#CSV} mode.
+     */
+    private final String csvExpression;
+
+    /**
+     * Longest accepted line.
+     */
+    private final int maxLine;
+
+    /**
+     * Creates a command line calculator.
+     * @param mode evaluation mode.
+     * @param model model executing keystroke lines.
+     * @param csvExpression expression evaluated for each row in {@link Mode#CSV} mode, otherwise ignored.
+     * @param maxLine longest accepted line.
+     */
+    CalcCli(Mode mode, CalcModel model, String csvExpression, int maxLine){
+        this.mode = Objects.requireNonNull(mode, "Mode can't be null!");
+        this.session = new CalcSession(model);
+        this.csvExpression = csvExpression;
+        this.maxLine = maxLine;
+    }
+
+    /**
+     * Evaluates all lines of the input.
+     * @param input source of lines.
+     * @param output destination of results.
+     * @param errors destination of error reports.
+     * @return number of lines which couldn't be evaluated.
+     * @throws IOException if reading or writing fails.
+     * @throws ExpressionException if the CSV expression or header is invalid.
+     */
+    long run(Reader input, Writer output, PrintWriter errors) throws IOException {
+        BoundedLineReader lines = new BoundedLineReader(input, maxLine);
+        Expression expression = null;
+        double[] values = null;
+        double[] stack = null;
+        long failed = 0;
+
+        if(mode == Mode.CSV){
+            if(!lines.next() || lines.line() == null)
+                throw new ExpressionException("Missing CSV header!");
+            String header = lines.line();
+            String[] names = header.split(",", -1);
+            for(int i = 0; i < names.length; i++)
+                names[i] = names[i].trim();
+            expression = Expression.compile(csvExpression, names);
+            values = new double[names.length];
+            stack = new double[expression.getMaxDepth()];
+            output.write(header);
+            output.write(",result\n");
+        }
+
+        while(lines.next()){
+            String line = lines.line();
+            String result;
+            try {
+                if(line == null)
+                    throw new IllegalArgumentException("Line is longer than " + maxLine + " characters!");
+                switch (mode){
+                    case KEYS: result = executeKeys(line); break;
+                    case EXPR: result = Double.toString(Expression.compile(line).evaluate()); break;
+                    default: result = Double.toString(evaluateRow(line, expression, values, stack)); break;
+                }
+            } catch (IllegalArgumentException | IllegalStateException | CalculatorInputException | ExpressionException e){
+                failed++;
+                errors.println("Line " + lines.lineNumber() + ": " + e.getMessage());
+                result = "NaN";
+            }
+            if(mode == Mode.CSV && line != null){
+                output.write(line);
+                output.write(',');
+            }
+            output.write(result);
+            output.write('\n');
+            // flush only when the next line isn't available yet, so piped input is written in blocks
+            if(!lines.ready())
+                output.flush();
+        }
+        output.flush();
+        errors.flush();
+        return failed;
+    }
+
+    /**
+     * Executes a keystroke line on a cleared calculator with an empty stack, so that lines are independent
+     * and the stack can't grow over a long input.
+     * @param line keystroke program.
+     * @return text on the display.
+     */
+    private String executeKeys(String line){
+        CalcModel model = session.getModel();
+        model.clearAll();
+        // clearing keeps the sign of the input, as in the GUI, so it is reset here
+        if(Math.copySign(1., model.getValue()) < 0)
+            model.swapSign();
+        session.getStack().clear();
+        session.execute(CalcProgram.compile(line));
+        return session.getModel().toString();
+    }
+
+    /**
+     * Evaluates the expression for a CSV row.
+     * @param line row of variable values.
+     * @param expression evaluated expression.
+     * @param values values of the variables, reused between rows.
+     * @param stack evaluation stack, reused between rows.
+     * @return value of the expression.
+     */
+    private static double evaluateRow(String line, Expression expression, double[] values, double[] stack){
+        int start = 0;
+        for(int i = 0; i < values.length; i++){
+            if(start > line.length())
+                throw new IllegalArgumentException("Expected " + values.length + " fields!");
+            int end = line.indexOf(',', start);
+            if(end < 0)
+                end = line.length();
+            values[i] = Double.parseDouble(line.substring(start, end).trim());
+            start = end + 1;
+        }
+        if(start <= line.length())
+            throw new IllegalArgumentException("Expected " + values.length + " fields!");
+        return expression.evaluate(values, stack);
+    }
+
+    /**
+     * Starts the command line calculator.
+     * @param args command line arguments.
+     */
+    public static void main(String[] args) {
+        Mode mode = Mode.KEYS;
+        String csvExpression = null;
+        boolean decimal = false;
+        int maxLine = DEFAULT_MAX_LINE;
+        int cacheCapacity = 0;
+        String file = null;
+        try {
+            for(int i = 0; i < args.length; i++){
+                switch (args[i]){
+                    case "--keys": mode = Mode.KEYS; break;
+                    case "--expr": mode = Mode.EXPR; break;
+                    case "--csv": mode = Mode.CSV; csvExpression = args[++i]; break;
+                    case "--decimal": decimal = true; break;
+                    case "--cache":
+                        cacheCapacity = Integer.parseInt(args[++i]);
+                        if(cacheCapacity < 0)
+                            throw new IllegalArgumentException("Capacity can't be negative!");
+                        break;
+                    case "--max-line": maxLine = Integer.parseInt(args[++i]); break;
+                    default:
+                        if(file != null || (args[i].startsWith("--")))
+                            throw new IllegalArgumentException("Unexpected argument " + args[i] + "!");
+                        file = args[i];
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            System.err.println("Usage: CalcCli [--keys | --expr | --csv EXPRESSION] [--decimal] [--cache N] [--max-line N] [FILE]");
+            System.exit(2);
+        }
+
+        CalcCli cli = new CalcCli(mode, decimal ? new DecimalCalcModel() : new CalcModelImpl(), csvExpression, maxLine);
+        cli.session.setFunctionCacheCapacity(cacheCapacity);
+        PrintWriter errors = new PrintWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8), true);
+        int status;
+        try (Reader input = new InputStreamReader(file == null || file.equals("-")
+                ? System.in : Files.newInputStream(Path.of(file)), StandardCharsets.UTF_8);
+             Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            status = cli.run(input, output, errors) == 0 ? 0 : 1;
+        } catch (IOException | ExpressionException | IllegalArgumentException e){
+            errors.println(e.getMessage());
+            status = 1;
+        }
+        System.exit(status);
+    }
+}
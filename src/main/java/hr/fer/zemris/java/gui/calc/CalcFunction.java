@@ -0,0 +1,81 @@
+package hr.fer.zemris.java.gui.calc;
+
+import hr.fer.zemris.java.gui.prim.Primality;
+
+import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Unary functions offered by the {@link Calculator}.
+ * Each function is identified by the label of the {@link Button} that applies it.
+ * @author MatijaPav
+ */
+public enum CalcFunction implements DoubleUnaryOperator {
+    SIN("sin", Math::sin),
+    ARCSIN("arcsin", Math::asin),
+    COS("cos", Math::cos),
+    ARCCOS("arccos", Math::acos),
+    TAN("tan", Math::tan),
+    ARCTAN("arctan", Math::atan),
+    CTG("ctg", x -> 1. / Math.tan(x)),
+    ARCCTG("arcctg", x -> Math.PI / 2 - Math.atan(x)),
+    LOG("log", Math::log10),
+    TEN_POW("10^x", x -> Math.pow(10, x)),
+    LN("ln", Math::log),
+    E_POW("e^x", x -> Math.pow(Math.E, x)),
+    RECIPROCAL("1/x", x -> 1 / x),
+    NEXT_PRIME("prime", CalcFunction::nextPrime);
+
+    /**
+     * Label of the function.
+     */
+    private final String label;
+
+    /**
+     * Computation performed by the function.
+     */
+    private final DoubleUnaryOperator function;
+
+    CalcFunction(String label, DoubleUnaryOperator function){
+        this.label = label;
+        this.function = function;
+    }
+
+    /**
+     * @return label of the function.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public double applyAsDouble(double operand) {
+        return function.applyAsDouble(operand);
+    }
+
+    /**
+     * Finds the smallest prime which is not smaller than {@code x}.
+     * Primes larger than {@code 2^53} are rounded to the nearest {@code double}.
+     * @param x lower bound.
+     * @return smallest prime not smaller than {@code x}, or {@link Double#NaN} if there is no such {@code long} prime.
+     */
+    private static double nextPrime(double x){
+        if(Double.isNaN(x) || x >= Long.MAX_VALUE)
+            return Double.NaN;
+        return Primality.nextPrime((long) Math.ceil(x));
+    }
+
+    /**
+     * Finds the function with the given label.
+     * @param label label of the function.
+     * @return function with the given label, or {@code null} if there is no such function.
+     */
+    public static CalcFunction forLabel(String label){
+        Objects.requireNonNull(label, "Label can't be null!");
+        for(CalcFunction f: values()){
+            if(f.label.equals(label))
+                return f;
+        }
+        return null;
+    }
+}
@@ -144,4 +144,38 @@ public interface CalcModel {
 	 */
 	void setPendingBinaryOperation(DoubleBinaryOperator op);
 	
+
+	/**
+	 * Započinje grupu promjena. Sve do odgovarajućeg poziva
+	 * {@link #endUpdate()} promatrači se ne obavještavaju o promjenama,
+	 * već se po završetku grupe obavještavaju jednom, o konačnom stanju.
+	 * Grupe se smiju ugnježđivati. Zadana implementacija ne grupira
+	 * obavijesti.
+	 */
+	default void beginUpdate() {
+	}
+
+	/**
+	 * Završava grupu promjena započetu pozivom {@link #beginUpdate()}.
+	 * Ako je time završena i vanjska grupa, a u njoj je došlo do promjene,
+	 * promatrači se obavještavaju jednom. Zadana implementacija ne radi
+	 * ništa; implementacije koje grupiraju obavijesti smiju baciti
+	 * {@link IllegalStateException} ako grupa promjena nije započeta.
+	 */
+	default void endUpdate() {
+	}
+
+	/**
+	 * Dodaje tekst koji treba prikazati na zaslonu kalkulatora na kraj
+	 * predanog spremnika. Zadana implementacija dodaje rezultat
+	 * metode {@link #toString()}.
+	 * 
+	 * @param sb spremnik; ne smije biti <code>null</code>
+	 * @return predani spremnik
+	 * 
+	 * @throws NullPointerException ako je za <code>sb</code> predana vrijednost <code>null</code>
+	 */
+	default StringBuilder appendTo(StringBuilder sb) {
+		return sb.append(toString());
+	}
 }
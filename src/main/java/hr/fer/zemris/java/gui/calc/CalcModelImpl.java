@@ -1,20 +1,48 @@
 package hr.fer.zemris.java.gui.calc;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.function.BinaryOperator;
 import java.util.function.DoubleBinaryOperator;
 
 /**
  * Implementation of {@link CalcModel} interface.
+ * <p>
+ * The model isn't thread safe and must be used from a single thread, which includes reading it:
+ * {@link #toString()} caches the displayed text, so it writes the model too. Listeners registered with
+ * an {@link Executor} get a snapshot of the model instead of the model itself, and
+ * {@link ConcurrentCalcModel} may be shared between threads.
  * @author MatijaPav
  */
 public class CalcModelImpl implements CalcModel {
     /**
-     * List of {@code CalcValueListeners}
+     * Largest mantissa which is still exactly representable as a {@code double}.
      */
-    private List<CalcValueListener> listeners;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten which are exactly representable as a {@code double}.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Registered {@code CalcValueListeners}.
+     */
+    private final CalcValueListeners listeners = new CalcValueListeners();
+
+    /**
+     * Number of started and not yet ended groups of changes.
+     */
+    private int updateDepth;
+
+    /**
+     * Indicates if the value changed within the current group of changes.
+     */
+    private boolean updateChanged;
 
     /**
      * Pending operation.
@@ -22,19 +50,45 @@ public class CalcModelImpl implements CalcModel {
     private DoubleBinaryOperator pendingOperation;
 
     /**
-     * Currently displayed result.
+     * Currently displayed text, {@code null} until {@link #toString()} renders it after a change.
+     * It is written without synchronisation, so the model mustn't be read from other threads.
      */
     private String frozenValue;
 
     /**
-     * Input.
+     * Characters of the input, only the first {@link #inputLength} are used.
+     */
+    private char[] input;
+
+    /**
+     * Number of used characters in {@link #input}.
+     */
+    private int inputLength;
+
+    /**
+     * Indicates if the input contains a decimal point.
      */
-    private String input;
+    private boolean decimalPoint;
+
+    /**
+     * Input digits read as a whole number, valid while {@link #mantissaExact} is set.
+     */
+    private long mantissa;
+
+    /**
+     * Number of digits after the decimal point.
+     */
+    private int scale;
+
+    /**
+     * Indicates if {@link #mantissa} still holds the exact value of input digits.
+     */
+    private boolean mantissaExact;
 
     /**
      * Double value of currently input digits.
      */
-    private Double inputValue;
+    private double inputValue;
 
     /**
      * Indicates the editability of model.
@@ -42,9 +96,14 @@ public class CalcModelImpl implements CalcModel {
     private boolean editable;
 
     /**
-     * Current operand.
+     * Current operand, valid while {@link #activeOperandSet} is set.
+     */
+    private double activeOperand;
+
+    /**
+     * Indicates if the active operand is set.
      */
-    private Double activeOperand;
+    private boolean activeOperandSet;
 
     /**
      * Indicates if the number is negative.
@@ -52,10 +111,10 @@ public class CalcModelImpl implements CalcModel {
     private boolean negative;
 
     public CalcModelImpl(){
-        this.listeners = new ArrayList<>();
         this.negative = false;
         this.editable = true;
-        this.input = "";
+        this.input = new char[32];
+        this.resetInput();
         this.inputValue = 0.;
     }
 
@@ -67,8 +126,20 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public void addCalcValueListener(CalcValueListener l) {
-        Objects.requireNonNull(l, "Listener can't be null!");
-        this.listeners.add(l);
+        listeners.add(l);
+    }
+
+    /**
+     * Registers a listener which is notified on the given executor, so that a slow listener doesn't
+     * delay changes of the model. Notifications arriving while one is still pending are coalesced.
+     * The model isn't thread safe, so the listener gets an immutable snapshot of the model taken when it
+     * changed, see {@link AsyncCalcValueListener}.
+     * The listener is removed by passing it to {@link #removeCalcValueListener(CalcValueListener)}.
+     * @param l listener, can't be {@code null}.
+     * @param executor executor on which the listener is notified, can't be {@code null}.
+     */
+    public void addCalcValueListener(CalcValueListener l, Executor executor) {
+        addCalcValueListener(new AsyncCalcValueListener(l, executor));
     }
 
     /**
@@ -80,8 +151,7 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public void removeCalcValueListener(CalcValueListener l) {
-        Objects.requireNonNull(l, "Listener can't be null!");
-        this.listeners.remove(l);
+        listeners.remove(l);
     }
 
     /**
@@ -90,9 +160,7 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public double getValue() {
-        if(negative)
-            return -1 * this.inputValue;
-        return this.inputValue;
+        return negative ? -inputValue : inputValue;
     }
 
     /**
@@ -105,10 +173,14 @@ public class CalcModelImpl implements CalcModel {
     public void setValue(double value) {
         this.negative = value < 0;
         this.inputValue = Math.abs(value);
-        this.input = inputValue.toString();
+        String text = Double.toString(inputValue);
+        this.resetInput();
+        ensureInputCapacity(text.length());
+        text.getChars(0, text.length(), input, 0);
+        this.inputLength = text.length();
         this.frozenValue = null;
         this.editable = false;
-        listeners.forEach(l -> l.valueChanged(this));
+        fireValueChanged();
     }
 
     /**
@@ -129,10 +201,10 @@ public class CalcModelImpl implements CalcModel {
     @Override
     public void clear() {
         this.inputValue = 0.;
-        this.input = "";
+        this.resetInput();
         this.frozenValue = null;
         this.editable = true;
-        listeners.forEach(l -> l.valueChanged(this));
+        fireValueChanged();
     }
 
     /**
@@ -141,7 +213,7 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public void clearAll() {
-        this.activeOperand = null;
+        this.activeOperandSet = false;
         this.pendingOperation = null;
         this.clear();
     }
@@ -156,7 +228,7 @@ public class CalcModelImpl implements CalcModel {
             throw new CalculatorInputException("Calculator is not editable!");
         this.negative = !negative;
         this.frozenValue = null;
-        listeners.forEach(l -> l.valueChanged(this));
+        fireValueChanged();
     }
 
     /**
@@ -166,13 +238,14 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public void insertDecimalPoint() throws CalculatorInputException {
-        if(!isEditable() || this.input.isEmpty() || this.input.contains("."))
+        if(!isEditable() || this.inputLength == 0 || this.decimalPoint)
             throw new CalculatorInputException("Can't place decimal point!");
 
-        this.input += ".";
-        this.inputValue = Double.parseDouble(input);
+        ensureInputCapacity(inputLength + 1);
+        this.input[inputLength++] = '.';
+        this.decimalPoint = true;
         this.frozenValue = null;
-        listeners.forEach(l -> l.valueChanged(this));
+        fireValueChanged();
     }
 
     /**
@@ -190,17 +263,36 @@ public class CalcModelImpl implements CalcModel {
         if(!this.editable)
             throw new CalculatorInputException("Calculator is not editable!");
 
-        String s = (this.input + digit);
-        s = s.replaceFirst("^0+(?!(\\.|$))", "");
-
-        double newValue = Double.parseDouble(s);
-        if(Double.isNaN(newValue) || Double.isInfinite(newValue))
+        // A lone leading zero is replaced by the next digit.
+        int position = (inputLength == 1 && input[0] == '0') ? 0 : inputLength;
+        long newMantissa = mantissa * 10 + digit;
+        int newScale = decimalPoint ? scale + 1 : scale;
+        boolean newMantissaExact = mantissaExact && mantissa < MAX_EXACT_MANTISSA / 10
+            && newScale < POWERS_OF_TEN.length;
+
+        ensureInputCapacity(position + 1);
+        char replaced = input[position];
+        input[position] = (char) ('0' + digit);
+
+        double newValue;
+        if(newMantissaExact) {
+            // Both operands are exact, so the division is rounded the same way parsing is.
+            newValue = newMantissa / POWERS_OF_TEN[newScale];
+        } else {
+            newValue = Double.parseDouble(new String(input, 0, position + 1));
+        }
+        if(Double.isNaN(newValue) || Double.isInfinite(newValue)) {
+            input[position] = replaced;
             throw new CalculatorInputException("The new value cannot be NaN or infinite!");
+        }
 
-        this.input = s;
+        this.inputLength = position + 1;
+        this.mantissa = newMantissa;
+        this.scale = newScale;
+        this.mantissaExact = newMantissaExact;
         this.inputValue = newValue;
         this.frozenValue = null;
-        listeners.forEach(l -> l.valueChanged(this));
+        fireValueChanged();
 
     }
 
@@ -210,7 +302,7 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public boolean isActiveOperandSet() {
-        return this.activeOperand != null;
+        return this.activeOperandSet;
     }
 
     /**
@@ -220,7 +312,7 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public double getActiveOperand() throws IllegalStateException {
-        if(activeOperand == null)
+        if(!activeOperandSet)
             throw new IllegalStateException();
         return this.activeOperand;
     }
@@ -234,6 +326,7 @@ public class CalcModelImpl implements CalcModel {
     @Override
     public void setActiveOperand(double activeOperand) {
         this.activeOperand = activeOperand;
+        this.activeOperandSet = true;
     }
 
     /**
@@ -241,7 +334,7 @@ public class CalcModelImpl implements CalcModel {
      */
     @Override
     public void clearActiveOperand() {
-        this.activeOperand = null;
+        this.activeOperandSet = false;
     }
 
     /**
@@ -263,16 +356,89 @@ public class CalcModelImpl implements CalcModel {
         this.pendingOperation = op;
     }
 
+    /**
+     * Vraća tekst koji treba prikazati na zaslonu kalkulatora.
+     * Tekst se pamti sve do sljedeće promjene vrijednosti.
+     * @return tekst za prikaz na zaslonu kalkulatora
+     */
     @Override
     public String toString(){
-        StringBuilder sb = new StringBuilder();
+        if(frozenValue == null)
+            this.frozenValue = appendTo(new StringBuilder(inputLength + 2)).toString();
+        return frozenValue;
+    }
+
+    /**
+     * Dodaje tekst koji treba prikazati na zaslonu kalkulatora na kraj
+     * predanog spremnika, bez stvaranja novog niza znakova.
+     * @param sb spremnik; ne smije biti <code>null</code>
+     * @return predani spremnik
+     */
+    @Override
+    public StringBuilder appendTo(StringBuilder sb){
+        Objects.requireNonNull(sb, "StringBuilder can't be null!");
+        if(frozenValue != null)
+            return sb.append(frozenValue);
         if(negative)
-            sb.append("-");
-        if(input.isEmpty()){
-            sb.append("0");
+            sb.append('-');
+        if(inputLength == 0)
+            return sb.append('0');
+        return sb.append(input, 0, inputLength);
+    }
+
+    /**
+     * Započinje grupu promjena. Sve do odgovarajućeg poziva
+     * {@link #endUpdate()} promatrači se ne obavještavaju o promjenama,
+     * već se po završetku grupe obavještavaju jednom, o konačnom stanju.
+     */
+    @Override
+    public void beginUpdate() {
+        this.updateDepth++;
+    }
+
+    /**
+     * Završava grupu promjena započetu pozivom {@link #beginUpdate()}.
+     * @throws IllegalStateException ako grupa promjena nije započeta
+     */
+    @Override
+    public void endUpdate() {
+        if(updateDepth == 0)
+            throw new IllegalStateException("No update in progress!");
+        if(--updateDepth == 0 && updateChanged){
+            this.updateChanged = false;
+            fireValueChanged();
+        }
+    }
+
+    /**
+     * Notifies the listeners registered when the notification starts, or just records the change
+     * while a group of changes is in progress.
+     */
+    private void fireValueChanged(){
+        if(updateDepth > 0){
+            this.updateChanged = true;
+            return;
         }
-        sb.append(input);
+        listeners.fire(this);
+    }
+
+    /**
+     * Empties the input buffer and resets the digit accumulator.
+     */
+    private void resetInput(){
+        this.inputLength = 0;
+        this.decimalPoint = false;
+        this.mantissa = 0;
+        this.scale = 0;
+        this.mantissaExact = true;
+    }
 
-        return sb.toString();
+    /**
+     * Grows the input buffer so it can hold at least {@code capacity} characters.
+     * @param capacity required capacity.
+     */
+    private void ensureInputCapacity(int capacity){
+        if(capacity > input.length)
+            this.input = Arrays.copyOf(input, Math.max(capacity, 2 * input.length));
     }
 }
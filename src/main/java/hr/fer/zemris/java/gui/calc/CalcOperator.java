@@ -0,0 +1,131 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Binary operations offered by the {@link Calculator}.
+ * Each operation is identified by the label of the {@link Button} that schedules it.
+ * @author MatijaPav
+ */
+public enum CalcOperator implements DoubleBinaryOperator {
+    ADD("+", Double::sum),
+    SUBTRACT("-", (l, r) -> l - r),
+    MULTIPLY("*", (l, r) -> l * r),
+    DIVIDE("/", (l, r) -> l / r),
+    POWER("x^n", Math::pow),
+    ROOT("x^(1/n)", (l, r) -> Math.pow(l, 1 / r));
+
+    /**
+     * Decimal exponent beyond which powers certainly aren't finite non-zero {@code double}s, and largest
+     * scale of powers calculated without rounding.
+     */
+    private static final int MAX_EXPONENT = 400;
+
+    /**
+     * Decimal exponent within which results certainly are finite non-zero {@code double}s.
+     */
+    private static final int MIN_CHECKED_EXPONENT = 300;
+
+    /**
+     * Label of the operation.
+     */
+    private final String label;
+
+    /**
+     * Computation performed by the operation.
+     */
+    private final DoubleBinaryOperator operator;
+
+    CalcOperator(String label, DoubleBinaryOperator operator){
+        this.label = label;
+        this.operator = operator;
+    }
+
+    /**
+     * @return label of the operation.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public double applyAsDouble(double left, double right) {
+        return operator.applyAsDouble(left, right);
+    }
+
+    /**
+     * Calculates the operation in decimal arithmetic, rounding the result to the given precision.
+     * Powers are calculated exactly only for integer exponents, and roots never.
+     * @param left left operand.
+     * @param right right operand.
+     * @param mc precision and rounding of the result.
+     * @return result of the operation, or {@code null} if it has no exact decimal form or its magnitude is
+     * outside the range of finite non-zero {@code double}s, in which case it should be calculated by
+     * {@link #applyAsDouble(double, double)}.
+     */
+    public ScaledDecimal apply(ScaledDecimal left, ScaledDecimal right, MathContext mc){
+        ScaledDecimal result = applyExactly(left, right, mc);
+        if(result == null || result.signum() == 0 || result.isCompact())
+            return result;
+        // the decimal exponent is cheaper than the conversion, which is needed only near the ends of the range
+        BigDecimal exact = result.toBigDecimal();
+        int exponent = exact.precision() - exact.scale() - 1;
+        if(exponent > -MIN_CHECKED_EXPONENT && exponent < MIN_CHECKED_EXPONENT)
+            return result;
+        double value = Math.abs(exact.doubleValue());
+        return value == 0 || Double.isInfinite(value) ? null : result;
+    }
+
+    /**
+     * Calculates the operation in decimal arithmetic, without checking the magnitude of the result.
+     */
+    private ScaledDecimal applyExactly(ScaledDecimal left, ScaledDecimal right, MathContext mc){
+        switch (this){
+            case ADD: return left.add(right).round(mc);
+            case SUBTRACT: return left.subtract(right).round(mc);
+            case MULTIPLY: return left.multiply(right).round(mc);
+            case DIVIDE:
+                if(right.signum() == 0)
+                    return null;
+                try {
+                    return left.divide(right, mc);
+                } catch (ArithmeticException e){
+                    return null;
+                }
+            case POWER:
+                try {
+                    int n = right.toBigDecimal().intValueExact();
+                    if(n < 0 && (left.signum() == 0 || mc.getPrecision() == 0))
+                        return null;
+                    // a result far outside the double range would be rejected anyway, so it isn't calculated
+                    if(left.signum() != 0 && !(Math.abs(n * Math.log10(Math.abs(left.doubleValue()))) < MAX_EXPONENT))
+                        return null;
+                    // without rounding the result has n times the scale of the base, even if its magnitude is small
+                    if(mc.getPrecision() == 0 && (long) n * Math.max(left.scale(), 0) > MAX_EXPONENT)
+                        return null;
+                    return left.pow(n, mc);
+                } catch (ArithmeticException e){
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Finds the operation with the given label.
+     * @param label label of the operation.
+     * @return operation with the given label, or {@code null} if there is no such operation.
+     */
+    public static CalcOperator forLabel(String label){
+        Objects.requireNonNull(label, "Label can't be null!");
+        for(CalcOperator op: values()){
+            if(op.label.equals(label))
+                return op;
+        }
+        return null;
+    }
+}
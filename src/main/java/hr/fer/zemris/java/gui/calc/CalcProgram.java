@@ -0,0 +1,122 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@code CalcProgram} is a compiled sequence of {@link Calculator} keystrokes
+ * which can be executed by a {@link CalcSession}.
+ * <p>
+ * Source of the program is a whitespace separated list of button labels, for example
+ * {@code "12.5 + 3 = push 2 sin"}. Tokens made only of digits and decimal points are split
+ * into single keystrokes. Supported labels are digits, {@code .}, {@code +/-}, {@code =},
+ * {@code clr}, {@code reset}, {@code push}, {@code pop} and labels of all
+ * {@link CalcFunction}s and {@link CalcOperator}s, including the inverse ones.
+ * @author MatijaPav
+ */
+public class CalcProgram {
+    static final byte DECIMAL_POINT = 10;
+    static final byte SWAP_SIGN = 11;
+    static final byte EQUALS = 12;
+    static final byte PUSH = 13;
+    static final byte POP = 14;
+    static final byte CLEAR = 15;
+    static final byte RESET = 16;
+
+    /**
+     * First code of the {@link CalcFunction} keystrokes, offset by the function ordinal.
+     */
+    static final byte FUNCTION = 32;
+
+    /**
+     * First code of the {@link CalcOperator} keystrokes, offset by the operator ordinal.
+     */
+    static final byte OPERATOR = 64;
+
+    /**
+     * Compiled keystrokes.
+     */
+    private final byte[] code;
+
+    private CalcProgram(byte[] code){
+        this.code = code;
+    }
+
+    /**
+     * Compiles the given keystroke program.
+     * @param source program text.
+     * @return compiled program.
+     * @throws IllegalArgumentException if the program contains an unknown keystroke.
+     */
+    public static CalcProgram compile(String source){
+        Objects.requireNonNull(source, "Program can't be null!");
+        byte[] code = new byte[source.length()];
+        int length = 0;
+
+        for(String token: source.trim().split("\\s+")){
+            if(token.isEmpty())
+                continue;
+            if(isNumber(token)){
+                for(int i = 0; i < token.length(); i++){
+                    char c = token.charAt(i);
+                    code[length++] = c == '.' ? DECIMAL_POINT : (byte) (c - '0');
+                }
+                continue;
+            }
+            code[length++] = compileKey(token);
+        }
+        return new CalcProgram(Arrays.copyOf(code, length));
+    }
+
+    /**
+     * Compiles a single non-numeric keystroke.
+     * @param token label of the key.
+     * @return code of the keystroke.
+     */
+    private static byte compileKey(String token){
+        switch (token){
+            case "+/-": return SWAP_SIGN;
+            case "=": return EQUALS;
+            case "push": return PUSH;
+            case "pop": return POP;
+            case "clr": return CLEAR;
+            case "reset": return RESET;
+        }
+        CalcFunction function = CalcFunction.forLabel(token);
+        if(function != null)
+            return (byte) (FUNCTION + function.ordinal());
+        CalcOperator operator = CalcOperator.forLabel(token);
+        if(operator != null)
+            return (byte) (OPERATOR + operator.ordinal());
+        throw new IllegalArgumentException("Unknown keystroke: " + token);
+    }
+
+    /**
+     * Checks if token consists only of digits and decimal points.
+     * @param token checked token.
+     * @return {@code true} if token is a number, {@code false} otherwise.
+     */
+    private static boolean isNumber(String token){
+        for(int i = 0; i < token.length(); i++){
+            char c = token.charAt(i);
+            if(c != '.' && (c < '0' || c > '9'))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return number of keystrokes in the program.
+     */
+    public int length() {
+        return code.length;
+    }
+
+    /**
+     * @param index index of the keystroke.
+     * @return code of the keystroke at given index.
+     */
+    byte codeAt(int index){
+        return code[index];
+    }
+}
@@ -0,0 +1,299 @@
+package hr.fer.zemris.java.gui.calc;
+
+import hr.fer.zemris.java.gui.calc.expr.Expression;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * {@code CalcSession} drives a {@link CalcModel} the same way {@link Calculator} buttons do,
+ * without requiring a GUI. It can be used interactively through its methods or by
+ * executing compiled {@link CalcProgram}s.
+ * @author MatijaPav
+ */
+public class CalcSession {
+    /**
+     * Number of programs below which a batch is no longer split between workers.
+     */
+    private static final int BATCH_THRESHOLD = 64;
+
+    /**
+     * Model driven by this session.
+     */
+    private final CalcModel model;
+
+    /**
+     * Model driven by this session if it is a {@link DecimalCalcModel}, {@code null} otherwise.
+     */
+    private final DecimalCalcModel decimal;
+
+    /**
+     * Calculators stack.
+     */
+    private final RpnStack stack;
+
+    /**
+     * Result caches of the {@link CalcFunction}s by ordinal, {@code null} if caching is disabled.
+     */
+    private FunctionCache[] functionCaches;
+
+    /**
+     * Creates a {@code CalcSession} backed by a new {@link CalcModelImpl}.
+     */
+    public CalcSession(){
+        this(new CalcModelImpl());
+    }
+
+    /**
+     * Creates a {@code CalcSession}.
+     * @param model {@link CalcModel} driven by this session.
+     */
+    public CalcSession(CalcModel model){
+        this.model = Objects.requireNonNull(model, "Model can't be null!");
+        this.decimal = model instanceof DecimalCalcModel ? (DecimalCalcModel) model : null;
+        this.stack = new RpnStack();
+    }
+
+    /**
+     * @return {@link CalcModel} driven by this session.
+     */
+    public CalcModel getModel() {
+        return model;
+    }
+
+    /**
+     * Applies the unary function to the current value.
+     * @param function applied function.
+     */
+    public void applyFunction(DoubleUnaryOperator function){
+        if(functionCaches != null && function instanceof CalcFunction){
+            FunctionCache cache = functionCaches[((CalcFunction) function).ordinal()];
+            if(cache != null)
+                function = cache;
+        }
+        model.setValue(function.applyAsDouble(model.getValue()));
+    }
+
+    /**
+     * Enables caching of the results of the trigonometric, logarithmic and exponential
+     * {@link CalcFunction}s, or disables it. Each function gets its own {@link FunctionCache}.
+     * @param capacity number of cached results of each function, 0 to disable caching.
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public void setFunctionCacheCapacity(int capacity){
+        if(capacity < 0)
+            throw new IllegalArgumentException("Capacity can't be negative!");
+        if(capacity == 0){
+            functionCaches = null;
+            return;
+        }
+        FunctionCache[] caches = new FunctionCache[CalcFunction.values().length];
+        for(CalcFunction f: CalcFunction.values()){
+            if(f != CalcFunction.RECIPROCAL && f != CalcFunction.NEXT_PRIME)
+                caches[f.ordinal()] = new FunctionCache(f, capacity);
+        }
+        functionCaches = caches;
+    }
+
+    /**
+     * @param function calculator function.
+     * @return cache of the results of the function, or {@code null} if they aren't cached.
+     */
+    public FunctionCache getFunctionCache(CalcFunction function){
+        return functionCaches == null ? null : functionCaches[function.ordinal()];
+    }
+
+    /**
+     * Schedules the binary operation, first calculating the already pending one if it exists.
+     * @param operator scheduled operation.
+     */
+    public void applyOperator(DoubleBinaryOperator operator){
+        if(model.getPendingBinaryOperation() == null){
+            ScaledDecimal exact = decimal == null ? null : decimal.getDecimal();
+            if(exact != null)
+                decimal.setActiveDecimal(exact);
+            else
+                model.setActiveOperand(model.getValue());
+            model.clear();
+        } else if(model.isActiveOperandSet()){
+            ScaledDecimal exact = calculateExactly();
+            if(exact != null)
+                decimal.setActiveDecimal(exact);
+            else
+                model.setActiveOperand(model.getPendingBinaryOperation().applyAsDouble(model.getActiveOperand(), model.getValue()));
+            model.clear();
+        }
+        model.setPendingBinaryOperation(operator);
+    }
+
+    /**
+     * Calculates the pending operation, if there is one.
+     */
+    public void calculate(){
+        if(model.getPendingBinaryOperation() != null && model.isActiveOperandSet()){
+            ScaledDecimal exact = calculateExactly();
+            if(exact != null)
+                decimal.setDecimal(exact);
+            else
+                model.setValue(model.getPendingBinaryOperation().applyAsDouble(model.getActiveOperand(), model.getValue()));
+            model.setPendingBinaryOperation(null);
+        }
+    }
+
+    /**
+     * Calculates the pending operation in decimal arithmetic, if the model is a {@link DecimalCalcModel}
+     * and the operation is a {@link CalcOperator} with an exact decimal result.
+     * @return result of the pending operation, or {@code null} if it can't be calculated exactly.
+     */
+    private ScaledDecimal calculateExactly(){
+        DoubleBinaryOperator pending = model.getPendingBinaryOperation();
+        if(decimal == null || !(pending instanceof CalcOperator))
+            return null;
+        ScaledDecimal left = decimal.getActiveDecimal();
+        ScaledDecimal right = decimal.getDecimal();
+        if(left == null || right == null)
+            return null;
+        return ((CalcOperator) pending).apply(left, right, decimal.getMathContext());
+    }
+
+    /**
+     * Evaluates the expression and stores the result into the model, like a pasted formula.
+     * @param expression evaluated expression.
+     * @param values values of the variables of the expression.
+     */
+    public void evaluate(Expression expression, double... values){
+        Objects.requireNonNull(expression, "Expression can't be null!");
+        model.setValue(expression.evaluate(values));
+    }
+
+    /**
+     * Pushes the current value to the stack and clears the model.
+     */
+    public void push(){
+        stack.push(model.getValue());
+        model.clear();
+    }
+
+    /**
+     * Pops the value from the stack into the model. Does nothing if the stack is empty.
+     */
+    public void pop(){
+        if(!stack.isEmpty())
+            model.setValue(stack.pop());
+    }
+
+    /**
+     * @return stack used by {@link #push()} and {@link #pop()}.
+     */
+    public RpnStack getStack() {
+        return stack;
+    }
+
+    /**
+     * Executes all keystrokes of the given program. Listeners of the model are notified once,
+     * after the program ends.
+     * @param program executed program.
+     * @throws CalculatorInputException if a keystroke is not allowed in the current state of the model.
+     */
+    public void execute(CalcProgram program){
+        Objects.requireNonNull(program, "Program can't be null!");
+        model.beginUpdate();
+        try {
+            run(program);
+        } finally {
+            model.endUpdate();
+        }
+    }
+
+    /**
+     * Executes all keystrokes of the given program.
+     * @param program executed program.
+     */
+    private void run(CalcProgram program){
+        for(int i = 0, n = program.length(); i < n; i++){
+            byte code = program.codeAt(i);
+            if(code < CalcProgram.DECIMAL_POINT){
+                model.insertDigit(code);
+                continue;
+            }
+            switch (code){
+                case CalcProgram.DECIMAL_POINT: model.insertDecimalPoint(); break;
+                case CalcProgram.SWAP_SIGN: model.swapSign(); break;
+                case CalcProgram.EQUALS: calculate(); break;
+                case CalcProgram.PUSH: push(); break;
+                case CalcProgram.POP: pop(); break;
+                case CalcProgram.CLEAR: model.clear(); break;
+                case CalcProgram.RESET: model.clearAll(); break;
+                default:
+                    if(code >= CalcProgram.OPERATOR)
+                        applyOperator(CalcOperator.values()[code - CalcProgram.OPERATOR]);
+                    else
+                        applyFunction(CalcFunction.values()[code - CalcProgram.FUNCTION]);
+            }
+        }
+    }
+
+    /**
+     * Executes each program in its own session using the common fork-join pool.
+     * @param programs executed programs.
+     * @return final value of each session; {@link Double#NaN} for programs which made an invalid input.
+     */
+    public static double[] evaluateAll(List<CalcProgram> programs){
+        return evaluateAll(programs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Executes each program in its own session using the given fork-join pool.
+     * @param programs executed programs.
+     * @param pool pool which executes the programs.
+     * @return final value of each session; {@link Double#NaN} for programs which made an invalid input.
+     */
+    public static double[] evaluateAll(List<CalcProgram> programs, ForkJoinPool pool){
+        Objects.requireNonNull(programs, "Programs can't be null!");
+        Objects.requireNonNull(pool, "Pool can't be null!");
+        double[] results = new double[programs.size()];
+        pool.invoke(new BatchTask(programs, results, 0, results.length));
+        return results;
+    }
+
+    /**
+     * Task which evaluates a range of programs, splitting it in halves while it is large.
+     */
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<CalcProgram> programs;
+        private final double[] results;
+        private final int from;
+        private final int to;
+
+        BatchTask(List<CalcProgram> programs, double[] results, int from, int to){
+            this.programs = programs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= BATCH_THRESHOLD){
+                for(int i = from; i < to; i++){
+                    CalcSession session = new CalcSession();
+                    try{
+                        session.execute(programs.get(i));
+                        results[i] = session.getModel().getValue();
+                    } catch (CalculatorInputException e){
+                        results[i] = Double.NaN;
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(programs, results, from, mid), new BatchTask(programs, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Copy-on-write registry of {@link CalcValueListener}s used by the models. The array of listeners is
+ * never modified, registration replaces it with a copy, so notification iterates over a consistent
+ * snapshot without locking or allocating, and listeners may register or remove themselves while
+ * being notified.
+ * @author MatijaPav
+ */
+final class CalcValueListeners {
+    /**
+     * Empty array of listeners.
+     */
+    private static final CalcValueListener[] NO_LISTENERS = new CalcValueListener[0];
+
+    /**
+     * Registered listeners.
+     */
+    private volatile CalcValueListener[] listeners = NO_LISTENERS;
+
+    /**
+     * Lock guarding replacement of {@link #listeners}.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Registers the listener.
+     * @param l listener, can't be {@code null}.
+     */
+    void add(CalcValueListener l){
+        Objects.requireNonNull(l, "Listener can't be null!");
+        synchronized (lock) {
+            CalcValueListener[] current = listeners;
+            CalcValueListener[] copy = Arrays.copyOf(current, current.length + 1);
+            copy[current.length] = l;
+            this.listeners = copy;
+        }
+    }
+
+    /**
+     * Removes the first registration of the listener, including one wrapped in an
+     * {@link AsyncCalcValueListener}.
+     * @param l listener, can't be {@code null}.
+     */
+    void remove(CalcValueListener l){
+        Objects.requireNonNull(l, "Listener can't be null!");
+        synchronized (lock) {
+            CalcValueListener[] current = listeners;
+            for(int i = 0; i < current.length; i++) {
+                CalcValueListener listener = current[i];
+                if(listener.equals(l) || (listener instanceof AsyncCalcValueListener
+                        && ((AsyncCalcValueListener) listener).getDelegate().equals(l))) {
+                    CalcValueListener[] copy = new CalcValueListener[current.length - 1];
+                    System.arraycopy(current, 0, copy, 0, i);
+                    System.arraycopy(current, i + 1, copy, i, current.length - i - 1);
+                    this.listeners = copy.length == 0 ? NO_LISTENERS : copy;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners registered when the notification starts.
+     * @param model model whose value changed.
+     */
+    void fire(CalcModel model){
+        for(CalcValueListener l : listeners)
+            l.valueChanged(model);
+    }
+}
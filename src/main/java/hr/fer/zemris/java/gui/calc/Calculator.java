@@ -6,9 +6,9 @@ import java.awt.Color;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.util.ArrayList;
-import java.util.EmptyStackException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
+import java.util.Objects;
 import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -22,6 +22,11 @@ import javax.swing.WindowConstants;
  * @author MatijaPav
  */
 public class Calculator extends JFrame {
+    /**
+     * Number of cached results of each function when started with {@code --cache}.
+     */
+    private static final int FUNCTION_CACHE_CAPACITY = 1024;
+
     /**
      * {@code CalcModel} instance used for implementation of basic Calculator functionlities.
      *
@@ -29,9 +34,9 @@ public class Calculator extends JFrame {
     private final CalcModel calcModel;
 
     /**
-     * Calculators stack.
+     * {@code CalcSession} which performs the operations of the buttons on {@link #calcModel}.
      */
-    private Stack<Double> stack;
+    private final CalcSession session;
 
     /**
      * List of {@link Button} with inverse.
@@ -42,9 +47,17 @@ public class Calculator extends JFrame {
      * Instantiates a new {@code Calculator}
      */
     public Calculator(){
+        this(new CalcModelImpl());
+    }
+
+    /**
+     * Instantiates a new {@code Calculator} backed by the given model.
+     * @param calcModel {@link CalcModel} used by the calculator.
+     */
+    public Calculator(CalcModel calcModel){
         super();
-        this.calcModel = new CalcModelImpl();
-        this.stack = new Stack<>();
+        this.calcModel = Objects.requireNonNull(calcModel, "Model can't be null!");
+        this.session = new CalcSession(calcModel);
         this.inverseButtons = new ArrayList<>();
         setLocation(100, 100);
         setSize(750, 500);
@@ -153,17 +166,8 @@ public class Calculator extends JFrame {
      * @param panel {@code JPanel} to which the buttons are added.
      */
     private void addStackButtons(JPanel panel){
-        panel.add(new Button("pop", e -> {
-            try{
-                this.calcModel.setValue(this.stack.pop());
-            } catch (EmptyStackException ignored){}
-        }), "4, 7");
-
-        panel.add(new Button("push", e -> {
-            this.stack.push(calcModel.getValue());
-            calcModel.clear();
-        })
-        , "3, 7");
+        panel.add(new Button("pop", e -> session.pop()), "4, 7");
+        panel.add(new Button("push", e -> session.push()), "3, 7");
     }
 
     /**
@@ -171,25 +175,10 @@ public class Calculator extends JFrame {
      * @param panel {@link JPanel} panel to which the buttons are added.
      */
     private void addTrigFunctionButtons(JPanel panel){
-        Button sin = new Button("sin", "arcsin", e -> calcModel.setValue(Math.sin(calcModel.getValue())),
-            e -> calcModel.setValue(Math.asin(calcModel.getValue())));
-        inverseButtons.add(sin);
-        panel.add(sin, "2, 2");
-
-        Button cos = new Button("cos", "arccos", e -> calcModel.setValue(Math.cos(calcModel.getValue())),
-            e -> calcModel.setValue(Math.acos(calcModel.getValue())));
-        inverseButtons.add(cos);
-        panel.add(cos, "3, 2");
-
-        Button tan = new Button("tan", "arctan", e -> calcModel.setValue(Math.tan(calcModel.getValue())),
-            e -> calcModel.setValue(Math.atan(calcModel.getValue())));
-        inverseButtons.add(tan);
-        panel.add(tan, "4, 2");
-
-        Button ctg = new Button("ctg", "arcctg", e -> calcModel.setValue(1. / Math.tan(calcModel.getValue())),
-            e -> calcModel.setValue(Math.PI / 2 - Math.atan(calcModel.getValue())));
-        inverseButtons.add(ctg);
-        panel.add(ctg, "5, 2");
+        panel.add(functionButton(CalcFunction.SIN, CalcFunction.ARCSIN), "2, 2");
+        panel.add(functionButton(CalcFunction.COS, CalcFunction.ARCCOS), "3, 2");
+        panel.add(functionButton(CalcFunction.TAN, CalcFunction.ARCTAN), "4, 2");
+        panel.add(functionButton(CalcFunction.CTG, CalcFunction.ARCCTG), "5, 2");
     }
 
     /**
@@ -197,93 +186,61 @@ public class Calculator extends JFrame {
      * @param panel {@code JPanel} to which the buttons are added.
      */
     private void addLogFunctionButtons(JPanel panel){
-        Button log = new Button("log", "10^x", e -> calcModel.setValue(Math.log10(calcModel.getValue())),
-            e -> calcModel.setValue(Math.pow(calcModel.getValue(), 10)));
-        inverseButtons.add(log);
-        panel.add(log, "3, 1");
-
-        Button ln = new Button("ln", "e^x", e -> calcModel.setValue(Math.log(calcModel.getValue())),
-            e -> calcModel.setValue(Math.pow(Math.E, calcModel.getValue())));
-        inverseButtons.add(ln);
-        panel.add(ln, "4, 1");
+        panel.add(functionButton(CalcFunction.LOG, CalcFunction.TEN_POW), "3, 1");
+        panel.add(functionButton(CalcFunction.LN, CalcFunction.E_POW), "4, 1");
     }
+
+    /**
+     * Creates a {@link Button} which applies a function, or its inverse in inverse mode.
+     * @param function function applied in "normal" mode.
+     * @param inverse function applied in inverse mode.
+     * @return created {@code Button}.
+     */
+    private Button functionButton(CalcFunction function, CalcFunction inverse){
+        Button button = new Button(function.getLabel(), inverse.getLabel(),
+            e -> session.applyFunction(function), e -> session.applyFunction(inverse));
+        inverseButtons.add(button);
+        return button;
+    }
+
     /**
      * Creates and adds operator buttons to current {@link JPanel}.
      * @param panel {@code JPanel} to which the buttons are added.
      */
     private void addOperatorButtons(JPanel panel){
-        Button plus = new Button("+", e -> {
-            operatorAction();
-            calcModel.setPendingBinaryOperation(Double::sum);
-        });
-        panel.add(plus, "5, 6");
-
-        Button min = new Button("-", e -> {
-            operatorAction();
-            calcModel.setPendingBinaryOperation((l, r) -> l - r);
-        });
-        panel.add(min, "4, 6");
-
-        Button mul = new Button("*", e -> {
-            operatorAction();
-            calcModel.setPendingBinaryOperation((l, r) -> l * r);
-        });
-        panel.add(mul, "3, 6");
+        panel.add(operatorButton(CalcOperator.ADD), "5, 6");
+        panel.add(operatorButton(CalcOperator.SUBTRACT), "4, 6");
+        panel.add(operatorButton(CalcOperator.MULTIPLY), "3, 6");
+        panel.add(operatorButton(CalcOperator.DIVIDE), "2, 6");
 
-        Button div = new Button("/", e -> {
-            operatorAction();
-            calcModel.setPendingBinaryOperation((l, r) -> l / r);
-        });
-        panel.add(div, "2, 6");
-
-        Button pow = new Button("x^n", "x^(1/n)", e ->{
-            operatorAction();
-            calcModel.setPendingBinaryOperation(Math::pow);
-        },
-            e ->{
-                operatorAction();
-                calcModel.setPendingBinaryOperation((l, r) ->
-                    Math.pow(l, 1 / r)
-                );
-        });
+        Button pow = new Button(CalcOperator.POWER.getLabel(), CalcOperator.ROOT.getLabel(),
+            e -> session.applyOperator(CalcOperator.POWER), e -> session.applyOperator(CalcOperator.ROOT));
         inverseButtons.add(pow);
         panel.add(pow, "5, 1");
     }
 
     /**
-     * Creates an equals button.
-     * @return equals button.
+     * Creates a {@link Button} which schedules a binary operation.
+     * @param operator scheduled operation.
+     * @return created {@code Button}.
      */
-    private Button equalsButton(){
-        return new Button("=", e -> {
-            if(calcModel.getPendingBinaryOperation() != null && calcModel.isActiveOperandSet()){
-                double res = calcModel.getPendingBinaryOperation().applyAsDouble(calcModel.getActiveOperand(), calcModel.getValue());
-                calcModel.setValue(res);
-                calcModel.setPendingBinaryOperation(null);
-            }
-        });
+    private Button operatorButton(CalcOperator operator){
+        return new Button(operator.getLabel(), e -> session.applyOperator(operator));
     }
 
     /**
-     * Checks if the passed {@link CalcModel} instance has a pending operation and an active operand set.
+     * Creates an equals button.
+     * @return equals button.
      */
-    private void operatorAction(){
-        if(calcModel.getPendingBinaryOperation() == null){
-            calcModel.setActiveOperand(calcModel.getValue());
-            calcModel.clear();
-        } else if(calcModel.isActiveOperandSet()){
-            double res = calcModel.getPendingBinaryOperation().applyAsDouble(calcModel.getActiveOperand(), calcModel.getValue());
-            calcModel.setActiveOperand(res);
-            calcModel.clear();
-        }
+    private Button equalsButton(){
+        return new Button("=", e -> session.calculate());
     }
 
     /**
      * Creates and adds buttons to given panel.
      */
     private void addOtherButtons(JPanel panel){
-        Button rp = new Button("1/x", e -> calcModel.setValue(1 / calcModel.getValue()));
-        panel.add(rp, "2, 1");
+        panel.add(functionButton(CalcFunction.RECIPROCAL, CalcFunction.NEXT_PRIME), "2, 1");
 
         Button clear = new Button("clr", e -> calcModel.clear());
         panel.add(clear, "1, 7");
@@ -298,9 +255,18 @@ public class Calculator extends JFrame {
         panel.add(decimal, "5, 5");
 
     }
+    /**
+     * Starts the calculator. With argument {@code --decimal}, the calculator calculates in exact
+     * decimal arithmetic, and with {@code --cache} it caches results of the functions.
+     * @param args command line arguments.
+     */
     public static void main(String[] args) {
+        boolean decimal = Arrays.asList(args).contains("--decimal");
+        boolean cache = Arrays.asList(args).contains("--cache");
         SwingUtilities.invokeLater(() -> {
-            Calculator calc = new Calculator();
+            Calculator calc = new Calculator(decimal ? new DecimalCalcModel() : new CalcModelImpl());
+            if(cache)
+                calc.session.setFunctionCacheCapacity(FUNCTION_CACHE_CAPACITY);
             calc.setVisible(true);
         });
     }
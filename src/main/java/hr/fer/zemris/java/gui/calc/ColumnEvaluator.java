@@ -0,0 +1,343 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.nio.DoubleBuffer;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * {@code ColumnEvaluator} applies calculator functions and operations element by element to columns of
+ * numbers. Columns are split in chunks of {@link #CHUNK_SIZE} elements which are processed concurrently
+ * by a {@link ForkJoinPool}.
+ * <p>
+ * The {@link CalcOperator}s and the most used {@link CalcFunction}s are recognized and applied by dedicated
+ * loops without calls through the interface, so that the JIT compiler can vectorise the arithmetic ones.
+ * Other functions are applied by calling them for each element.
+ * <p>
+ * An output may be the same column as an input, but mustn't overlap an input at a different offset.
+ * Buffer methods process the remaining elements of the inputs and advance the positions of all buffers
+ * by the number of processed elements, as relative bulk operations do.
+ * @author MatijaPav
+ */
+public class ColumnEvaluator {
+    /**
+     * Number of elements processed by one task.
+     */
+    static final int CHUNK_SIZE = 1 << 12;
+
+    /**
+     * Pool processing the chunks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an evaluator using the common pool.
+     */
+    public ColumnEvaluator(){
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an evaluator using the given pool.
+     * @param pool pool processing the chunks.
+     */
+    public ColumnEvaluator(ForkJoinPool pool){
+        this.pool = Objects.requireNonNull(pool, "Pool can't be null!");
+    }
+
+    /**
+     * Applies the function to each element of the input.
+     * @param function applied function.
+     * @param in input column.
+     * @param out output column, at least as long as the input.
+     * @throws IllegalArgumentException if the output is shorter than the input.
+     */
+    public void apply(DoubleUnaryOperator function, double[] in, double[] out){
+        Objects.requireNonNull(function, "Function can't be null!");
+        checkLength(in.length, out.length);
+        run(in.length, (from, to) -> apply(function, in, from, out, from, to - from));
+    }
+
+    /**
+     * Applies the operation to the elements at the same index of both inputs.
+     * @param operator applied operation.
+     * @param left left operands.
+     * @param right right operands, as many as the left ones.
+     * @param out output column, at least as long as the inputs.
+     * @throws IllegalArgumentException if the inputs differ in length or the output is shorter.
+     */
+    public void apply(DoubleBinaryOperator operator, double[] left, double[] right, double[] out){
+        Objects.requireNonNull(operator, "Operator can't be null!");
+        if(left.length != right.length)
+            throw new IllegalArgumentException("Operands must have the same length!");
+        checkLength(left.length, out.length);
+        run(left.length, (from, to) -> apply(operator, left, from, right, from, out, from, to - from));
+    }
+
+    /**
+     * Applies the operation to each element of the input and the same right operand.
+     * @param operator applied operation.
+     * @param left left operands.
+     * @param right right operand.
+     * @param out output column, at least as long as the input.
+     * @throws IllegalArgumentException if the output is shorter than the input.
+     */
+    public void apply(DoubleBinaryOperator operator, double[] left, double right, double[] out){
+        Objects.requireNonNull(operator, "Operator can't be null!");
+        checkLength(left.length, out.length);
+        run(left.length, (from, to) -> apply(operator, left, from, right, out, from, to - from));
+    }
+
+    /**
+     * Applies the function to each remaining element of the input.
+     * @param function applied function.
+     * @param in input column.
+     * @param out output column, with at least as many remaining elements as the input.
+     * @throws IllegalArgumentException if the output has fewer remaining elements than the input.
+     * @throws java.nio.ReadOnlyBufferException if the output is read only.
+     */
+    public void apply(DoubleUnaryOperator function, DoubleBuffer in, DoubleBuffer out){
+        Objects.requireNonNull(function, "Function can't be null!");
+        int length = in.remaining();
+        checkLength(length, out.remaining());
+        int inStart = in.position();
+        int outStart = out.position();
+        if(in.hasArray() && out.hasArray()) {
+            double[] inArray = in.array();
+            double[] outArray = out.array();
+            int inOffset = in.arrayOffset() + inStart;
+            int outOffset = out.arrayOffset() + outStart;
+            run(length, (from, to) -> apply(function, inArray, inOffset + from, outArray, outOffset + from, to - from));
+        } else {
+            run(length, (from, to) -> {
+                double[] chunk = new double[to - from];
+                in.get(inStart + from, chunk, 0, chunk.length);
+                apply(function, chunk, 0, chunk, 0, chunk.length);
+                out.put(outStart + from, chunk, 0, chunk.length);
+            });
+        }
+        in.position(inStart + length);
+        out.position(outStart + length);
+    }
+
+    /**
+     * Applies the operation to the remaining elements at the same offset of both inputs.
+     * @param operator applied operation.
+     * @param left left operands.
+     * @param right right operands, with as many remaining elements as the left ones.
+     * @param out output column, with at least as many remaining elements as the inputs.
+     * @throws IllegalArgumentException if the inputs differ in length or the output is shorter.
+     * @throws java.nio.ReadOnlyBufferException if the output is read only.
+     */
+    public void apply(DoubleBinaryOperator operator, DoubleBuffer left, DoubleBuffer right, DoubleBuffer out){
+        Objects.requireNonNull(operator, "Operator can't be null!");
+        int length = left.remaining();
+        if(length != right.remaining())
+            throw new IllegalArgumentException("Operands must have the same length!");
+        checkLength(length, out.remaining());
+        int leftStart = left.position();
+        int rightStart = right.position();
+        int outStart = out.position();
+        if(left.hasArray() && right.hasArray() && out.hasArray()) {
+            double[] leftArray = left.array();
+            double[] rightArray = right.array();
+            double[] outArray = out.array();
+            int leftOffset = left.arrayOffset() + leftStart;
+            int rightOffset = right.arrayOffset() + rightStart;
+            int outOffset = out.arrayOffset() + outStart;
+            run(length, (from, to) -> apply(operator, leftArray, leftOffset + from, rightArray, rightOffset + from,
+                outArray, outOffset + from, to - from));
+        } else {
+            run(length, (from, to) -> {
+                double[] leftChunk = new double[to - from];
+                double[] rightChunk = new double[to - from];
+                left.get(leftStart + from, leftChunk, 0, leftChunk.length);
+                right.get(rightStart + from, rightChunk, 0, rightChunk.length);
+                apply(operator, leftChunk, 0, rightChunk, 0, leftChunk, 0, leftChunk.length);
+                out.put(outStart + from, leftChunk, 0, leftChunk.length);
+            });
+        }
+        left.position(leftStart + length);
+        right.position(rightStart + length);
+        out.position(outStart + length);
+    }
+
+    /**
+     * Processes the range of elements, in the calling thread if it fits a single chunk.
+     * @param length number of elements.
+     * @param range processing of a part of the range.
+     */
+    private void run(int length, Range range){
+        if(length <= CHUNK_SIZE)
+            range.apply(0, length);
+        else
+            pool.invoke(new ChunkTask(range, 0, length));
+    }
+
+    private static void checkLength(int length, int outLength){
+        if(outLength < length)
+            throw new IllegalArgumentException("Output must have at least " + length + " elements!");
+    }
+
+    /**
+     * Applies the function to a part of a column.
+     */
+    private static void apply(DoubleUnaryOperator function, double[] in, int inOffset, double[] out, int outOffset,
+            int length){
+        if(function instanceof CalcFunction) {
+            switch ((CalcFunction) function){
+                case SIN:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.sin(in[inOffset + i]);
+                    return;
+                case COS:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.cos(in[inOffset + i]);
+                    return;
+                case TAN:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.tan(in[inOffset + i]);
+                    return;
+                case LOG:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.log10(in[inOffset + i]);
+                    return;
+                case LN:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.log(in[inOffset + i]);
+                    return;
+                case TEN_POW:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.pow(10, in[inOffset + i]);
+                    return;
+                case RECIPROCAL:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = 1 / in[inOffset + i];
+                    return;
+                default:
+                    break;
+            }
+        }
+        for(int i = 0; i < length; i++)
+            out[outOffset + i] = function.applyAsDouble(in[inOffset + i]);
+    }
+
+    /**
+     * Applies the operation to parts of two columns.
+     */
+    private static void apply(DoubleBinaryOperator operator, double[] left, int leftOffset, double[] right,
+            int rightOffset, double[] out, int outOffset, int length){
+        if(operator instanceof CalcOperator) {
+            switch ((CalcOperator) operator){
+                case ADD:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] + right[rightOffset + i];
+                    return;
+                case SUBTRACT:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] - right[rightOffset + i];
+                    return;
+                case MULTIPLY:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] * right[rightOffset + i];
+                    return;
+                case DIVIDE:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] / right[rightOffset + i];
+                    return;
+                case POWER:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.pow(left[leftOffset + i], right[rightOffset + i]);
+                    return;
+                default:
+                    break;
+            }
+        }
+        for(int i = 0; i < length; i++)
+            out[outOffset + i] = operator.applyAsDouble(left[leftOffset + i], right[rightOffset + i]);
+    }
+
+    /**
+     * Applies the operation to a part of a column and a constant right operand.
+     */
+    private static void apply(DoubleBinaryOperator operator, double[] left, int leftOffset, double right,
+            double[] out, int outOffset, int length){
+        if(operator instanceof CalcOperator) {
+            switch ((CalcOperator) operator){
+                case ADD:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] + right;
+                    return;
+                case SUBTRACT:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] - right;
+                    return;
+                case MULTIPLY:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] * right;
+                    return;
+                case DIVIDE:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = left[leftOffset + i] / right;
+                    return;
+                case POWER:
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.pow(left[leftOffset + i], right);
+                    return;
+                case ROOT:
+                    double exponent = 1 / right;
+                    for(int i = 0; i < length; i++)
+                        out[outOffset + i] = Math.pow(left[leftOffset + i], exponent);
+                    return;
+                default:
+                    break;
+            }
+        }
+        for(int i = 0; i < length; i++)
+            out[outOffset + i] = operator.applyAsDouble(left[leftOffset + i], right);
+    }
+
+    /**
+     * Processing of a range of elements.
+     */
+    @FunctionalInterface
+    private interface Range {
+        /**
+         * @param from index of the first processed element.
+         * @param to index following the last processed element.
+         */
+        void apply(int from, int to);
+    }
+
+    /**
+     * Task which processes a range of elements, splitting it in halves while it is larger than a chunk.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Range range;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Range range, int from, int to){
+            this.range = range;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > CHUNK_SIZE){
+                int mid = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(range, from, mid);
+                left.fork();
+                new ChunkTask(range, mid, to).compute();
+                left.join();
+                return;
+            }
+            range.apply(from, to);
+        }
+    }
+}
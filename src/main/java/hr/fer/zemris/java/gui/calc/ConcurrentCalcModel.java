@@ -0,0 +1,305 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread safe implementation of {@link CalcModel} interface. Whole state of the model is an immutable
+ * {@link State} which changes replace atomically, so any number of threads may read the model without
+ * locking while others change it. Every change is applied to the latest state, and a reader always
+ * observes a state produced by a complete change.
+ * @author MatijaPav
+ */
+public class ConcurrentCalcModel implements CalcModel {
+    /**
+     * State of the model which was not changed since creation or {@link #clearAll()}.
+     */
+    private static final State INITIAL = new State("", 0., false, true, false, 0., null);
+
+    /**
+     * Current state.
+     */
+    private final AtomicReference<State> state = new AtomicReference<>(INITIAL);
+
+    /**
+     * Registered {@code CalcValueListeners}.
+     */
+    private final CalcValueListeners listeners = new CalcValueListeners();
+
+    /**
+     * Prijava promatrača koje treba obavijestiti kada se
+     * promijeni vrijednost pohranjena u kalkulatoru.
+     * @param l promatrač; ne smije biti <code>null</code>
+     * @throws NullPointerException ako je za <code>l</code> predana vrijednost <code>null</code>
+     */
+    @Override
+    public void addCalcValueListener(CalcValueListener l) {
+        listeners.add(l);
+    }
+
+    /**
+     * Odjava promatrača s popisa promatrača koje treba
+     * obavijestiti kada se promijeni vrijednost
+     * pohranjena u kalkulatoru.
+     * @param l promatrač; ne smije biti <code>null</code>
+     * @throws NullPointerException ako je za <code>l</code> predana vrijednost <code>null</code>
+     */
+    @Override
+    public void removeCalcValueListener(CalcValueListener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * Vraća tekst koji treba prikazati na zaslonu kalkulatora.
+     * @return tekst za prikaz na zaslonu kalkulatora
+     */
+    @Override
+    public String toString() {
+        return state.get().text;
+    }
+
+    /**
+     * Vraća trenutnu vrijednost koja je pohranjena u kalkulatoru.
+     * @return vrijednost pohranjena u kalkulatoru
+     */
+    @Override
+    public double getValue() {
+        State current = state.get();
+        return current.negative ? -current.value : current.value;
+    }
+
+    /**
+     * Upisuje decimalnu vrijednost u kalkulator. Vrijednost smije
+     * biti i beskonačno odnosno NaN. Po upisu kalkulator
+     * postaje needitabilan.
+     * @param value vrijednost koju treba upisati
+     */
+    @Override
+    public void setValue(double value) {
+        double abs = Math.abs(value);
+        String input = Double.toString(abs);
+        update(s -> new State(input, abs, value < 0, false, s.operandSet, s.activeOperand, s.pendingOperation),
+            true);
+    }
+
+    /**
+     * Vraća informaciju je li kalkulator editabilan (drugim riječima,
+     * smije li korisnik pozivati metode {@link #swapSign()},
+     * {@link #insertDecimalPoint()} te {@link #insertDigit(int)}).
+     * @return <code>true</code> ako je model editabilan, <code>false</code> inače
+     */
+    @Override
+    public boolean isEditable() {
+        return state.get().editable;
+    }
+
+    /**
+     * Resetira trenutnu vrijednost na neunesenu i vraća kalkulator u
+     * editabilno stanje.
+     */
+    @Override
+    public void clear() {
+        update(s -> new State("", 0., s.negative, true, s.operandSet, s.activeOperand, s.pendingOperation), true);
+    }
+
+    /**
+     * Obavlja sve što i {@link #clear()}, te dodatno uklanja aktivni
+     * operand i zakazanu operaciju.
+     */
+    @Override
+    public void clearAll() {
+        update(s -> new State("", 0., s.negative, true, false, 0., null), true);
+    }
+
+    /**
+     * Mijenja predznak unesenog broja.
+     * @throws CalculatorInputException ako kalkulator nije editabilan
+     */
+    @Override
+    public void swapSign() throws CalculatorInputException {
+        update(s -> {
+            if(!s.editable)
+                throw new CalculatorInputException("Calculator is not editable!");
+            return new State(s.input, s.value, !s.negative, true, s.operandSet, s.activeOperand, s.pendingOperation);
+        }, true);
+    }
+
+    /**
+     * Dodaje na kraj trenutnog broja decimalnu točku.
+     * @throws CalculatorInputException ako nije još unesena niti jedna znamenka broja,
+     * ako broj već sadrži decimalnu točku ili ako kalkulator nije editabilan
+     */
+    @Override
+    public void insertDecimalPoint() throws CalculatorInputException {
+        update(s -> {
+            if(!s.editable || s.input.isEmpty() || s.input.indexOf('.') >= 0)
+                throw new CalculatorInputException("Can't place decimal point!");
+            return new State(s.input + '.', s.value, s.negative, true, s.operandSet, s.activeOperand,
+                s.pendingOperation);
+        }, true);
+    }
+
+    /**
+     * U broj koji se trenutno upisuje na kraj dodaje poslanu znamenku.
+     * Ako je trenutni broj "0", dodavanje još jedne nule se potiho
+     * ignorira.
+     * @param digit znamenka koju treba dodati
+     * @throws CalculatorInputException ako bi dodavanjem predane znamenke broj postao prevelik za konačan prikaz u tipu {@link Double}, ili ako kalkulator nije editabilan.
+     * @throws IllegalArgumentException ako je <code>digit &lt; 0</code> ili <code>digit &gt; 9</code>
+     */
+    @Override
+    public void insertDigit(int digit) throws CalculatorInputException, IllegalArgumentException {
+        if(digit < 0 || digit > 9)
+            throw new IllegalArgumentException("Only single digit, positive numbers can be passed as arguments!");
+        char c = (char) ('0' + digit);
+        update(s -> {
+            if(!s.editable)
+                throw new CalculatorInputException("Calculator is not editable!");
+            String input = s.input.equals("0") ? String.valueOf(c) : s.input + c;
+            double value = Double.parseDouble(input);
+            if(Double.isNaN(value) || Double.isInfinite(value))
+                throw new CalculatorInputException("The new value cannot be NaN or infinite!");
+            return new State(input, value, s.negative, true, s.operandSet, s.activeOperand, s.pendingOperation);
+        }, true);
+    }
+
+    /**
+     * Provjera je li upisan aktivni operand.
+     * @return <code>true</code> ako je aktivani operand upisan, <code>false</code> inače
+     */
+    @Override
+    public boolean isActiveOperandSet() {
+        return state.get().operandSet;
+    }
+
+    /**
+     * Dohvat aktivnog operanda.
+     * @return aktivni operand
+     * @throws IllegalStateException ako aktivni operand nije postavljen
+     */
+    @Override
+    public double getActiveOperand() throws IllegalStateException {
+        State current = state.get();
+        if(!current.operandSet)
+            throw new IllegalStateException();
+        return current.activeOperand;
+    }
+
+    /**
+     * Metoda postavlja aktivni operand na predanu vrijednost.
+     * Ako kalkulator već ima postavljen aktivni operand, predana
+     * vrijednost ga nadjačava.
+     * @param activeOperand vrijednost koju treba pohraniti kao aktivni operand
+     */
+    @Override
+    public void setActiveOperand(double activeOperand) {
+        update(s -> new State(s.input, s.value, s.negative, s.editable, true, activeOperand, s.pendingOperation),
+            false);
+    }
+
+    /**
+     * Uklanjanje zapisanog aktivnog operanda.
+     */
+    @Override
+    public void clearActiveOperand() {
+        update(s -> new State(s.input, s.value, s.negative, s.editable, false, 0., s.pendingOperation), false);
+    }
+
+    /**
+     * Dohvat zakazane operacije.
+     * @return zakazanu operaciju, ili <code>null</code> ako nema zakazane operacije
+     */
+    @Override
+    public DoubleBinaryOperator getPendingBinaryOperation() {
+        return state.get().pendingOperation;
+    }
+
+    /**
+     * Postavljanje zakazane operacije. Ako zakazana operacija već
+     * postoji, ovaj je poziv nadjačava predanom vrijednošću.
+     * @param op zakazana operacija koju treba postaviti; smije biti <code>null</code>
+     */
+    @Override
+    public void setPendingBinaryOperation(DoubleBinaryOperator op) {
+        update(s -> new State(s.input, s.value, s.negative, s.editable, s.operandSet, s.activeOperand, op), false);
+    }
+
+    /**
+     * Replaces the state with the result of the change applied to it, retrying if another thread
+     * replaced the state in the meantime.
+     * @param change function computing the new state, may be applied several times.
+     * @param notify indicates if listeners are notified of the change.
+     * @throws CalculatorInputException if the change is not allowed in the current state.
+     */
+    private void update(UnaryOperator<State> change, boolean notify){
+        State current;
+        State next;
+        do {
+            current = state.get();
+            next = change.apply(current);
+        } while(!state.compareAndSet(current, next));
+
+        if(notify) {
+            listeners.fire(this);
+        }
+    }
+
+    /**
+     * Immutable state of the model.
+     */
+    private static final class State {
+        /**
+         * Input digits without the sign, empty if there is no input.
+         */
+        final String input;
+
+        /**
+         * Absolute value of the input.
+         */
+        final double value;
+
+        /**
+         * Indicates if the number is negative.
+         */
+        final boolean negative;
+
+        /**
+         * Indicates the editability of the model.
+         */
+        final boolean editable;
+
+        /**
+         * Indicates if the active operand is set.
+         */
+        final boolean operandSet;
+
+        /**
+         * Active operand, valid while {@link #operandSet} is set.
+         */
+        final double activeOperand;
+
+        /**
+         * Pending operation.
+         */
+        final DoubleBinaryOperator pendingOperation;
+
+        /**
+         * Displayed text.
+         */
+        final String text;
+
+        State(String input, double value, boolean negative, boolean editable, boolean operandSet,
+                double activeOperand, DoubleBinaryOperator pendingOperation) {
+            this.input = input;
+            this.value = value;
+            this.negative = negative;
+            this.editable = editable;
+            this.operandSet = operandSet;
+            this.activeOperand = activeOperand;
+            this.pendingOperation = pendingOperation;
+            String digits = input.isEmpty() ? "0" : input;
+            this.text = negative ? "-" + digits : digits;
+        }
+    }
+}
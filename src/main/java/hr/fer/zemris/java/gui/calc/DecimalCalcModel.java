@@ -0,0 +1,530 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Implementation of {@link CalcModel} interface which keeps values as exact decimal numbers.
+ * Input digits and values set through {@link #setDecimal(ScaledDecimal)} are kept exactly, and
+ * {@link CalcSession} calculates {@link CalcOperator}s on them in decimal arithmetic, rounding the results
+ * to the model's {@link MathContext}. Values set as a {@code double} are taken as the decimal number
+ * {@link Double#toString(double)} shows, and are displayed as that text, so they look the same as in
+ * {@link CalcModelImpl}. Infinite and NaN values set as a {@code double} are kept as such, and have no
+ * decimal value.
+ * <p>
+ * Values are kept as {@link ScaledDecimal}s, so they stay in {@code long} arithmetic while they fit.
+ * <p>
+ * Like {@link CalcModelImpl}, the model isn't thread safe and must be used from a single thread, which
+ * includes reading it, because {@link #toString()} caches the displayed text.
+ * @author MatijaPav
+ */
+public class DecimalCalcModel implements CalcModel {
+    /**
+     * Largest mantissa to which another digit can be appended without overflow.
+     */
+    private static final long MAX_MANTISSA = Long.MAX_VALUE / 10;
+
+    /**
+     * Precision and rounding of the calculated values.
+     */
+    private final MathContext mathContext;
+
+    /**
+     * Registered {@code CalcValueListeners}.
+     */
+    private final CalcValueListeners listeners = new CalcValueListeners();
+
+    /**
+     * Number of started and not yet ended groups of changes.
+     */
+    private int updateDepth;
+
+    /**
+     * Indicates if the value changed within the current group of changes.
+     */
+    private boolean updateChanged;
+
+    /**
+     * Characters of the input, only the first {@link #inputLength} are used.
+     */
+    private char[] input = new char[32];
+
+    /**
+     * Number of used characters in {@link #input}.
+     */
+    private int inputLength;
+
+    /**
+     * Indicates if the input contains a decimal point.
+     */
+    private boolean decimalPoint;
+
+    /**
+     * Input digits read as a whole number, valid while {@link #mantissaExact} is set.
+     */
+    private long mantissa;
+
+    /**
+     * Number of digits after the decimal point.
+     */
+    private int scale;
+
+    /**
+     * Indicates if {@link #mantissa} still holds the exact value of input digits.
+     */
+    private boolean mantissaExact;
+
+    /**
+     * Absolute value, {@code null} if the value is infinite or NaN.
+     */
+    private ScaledDecimal value;
+
+    /**
+     * Absolute value as a {@code double}.
+     */
+    private double doubleValue;
+
+    /**
+     * Indicates if the number is negative.
+     */
+    private boolean negative;
+
+    /**
+     * Indicates the editability of model.
+     */
+    private boolean editable;
+
+    /**
+     * Current operand, {@code null} if it is infinite or NaN, valid while {@link #activeOperandSet} is set.
+     */
+    private ScaledDecimal activeOperand;
+
+    /**
+     * Current operand as a {@code double}, valid while {@link #activeOperandSet} is set.
+     */
+    private double activeDouble;
+
+    /**
+     * Indicates if the active operand is set.
+     */
+    private boolean activeOperandSet;
+
+    /**
+     * Pending operation.
+     */
+    private DoubleBinaryOperator pendingOperation;
+
+    /**
+     * Indicates if the stored value was set as a {@code double}, so it is displayed as one.
+     */
+    private boolean setAsDouble;
+
+    /**
+     * Currently displayed text, {@code null} until {@link #toString()} renders it after a change.
+     * It is written without synchronisation, so the model mustn't be read from other threads.
+     */
+    private String frozenValue;
+
+    /**
+     * Creates a {@code DecimalCalcModel} which rounds calculated values to 34 digits.
+     */
+    public DecimalCalcModel(){
+        this(MathContext.DECIMAL128);
+    }
+
+    /**
+     * Creates a {@code DecimalCalcModel}.
+     * @param mathContext precision and rounding of the calculated values; with unlimited precision,
+     * quotients without a finite decimal representation are calculated as {@code double}s.
+     */
+    public DecimalCalcModel(MathContext mathContext){
+        this.mathContext = Objects.requireNonNull(mathContext, "Math context can't be null!");
+        this.editable = true;
+        this.resetInput();
+    }
+
+    /**
+     * @return precision and rounding of the calculated values.
+     */
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    /**
+     * Prijava promatrača koje treba obavijestiti kada se
+     * promijeni vrijednost pohranjena u kalkulatoru.
+     * @param l promatrač; ne smije biti <code>null</code>
+     * @throws NullPointerException ako je za <code>l</code> predana vrijednost <code>null</code>
+     */
+    @Override
+    public void addCalcValueListener(CalcValueListener l) {
+        listeners.add(l);
+    }
+
+    /**
+     * Odjava promatrača s popisa promatrača koje treba
+     * obavijestiti kada se promijeni vrijednost
+     * pohranjena u kalkulatoru.
+     * @param l promatrač; ne smije biti <code>null</code>
+     * @throws NullPointerException ako je za <code>l</code> predana vrijednost <code>null</code>
+     */
+    @Override
+    public void removeCalcValueListener(CalcValueListener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * Vraća trenutnu vrijednost koja je pohranjena u kalkulatoru.
+     * @return vrijednost pohranjena u kalkulatoru
+     */
+    @Override
+    public double getValue() {
+        return negative ? -doubleValue : doubleValue;
+    }
+
+    /**
+     * Returns the exact value stored in the calculator.
+     * @return stored value, or {@code null} if it is infinite or NaN.
+     */
+    public ScaledDecimal getDecimal() {
+        if(value == null)
+            return null;
+        return negative ? value.negate() : value;
+    }
+
+    /**
+     * Upisuje decimalnu vrijednost u kalkulator. Vrijednost smije
+     * biti i beskonačno odnosno NaN. Po upisu kalkulator
+     * postaje needitabilan.
+     * @param value vrijednost koju treba upisati
+     */
+    @Override
+    public void setValue(double value) {
+        double abs = Math.abs(value);
+        store(Double.isFinite(abs) ? ScaledDecimal.valueOf(abs) : null, abs, value < 0, true);
+    }
+
+    /**
+     * Stores the exact value into the calculator, which then becomes non editable. A value too large
+     * for a finite {@code double} is stored as an infinity, as {@link #setValue(double)} would store it.
+     * @param value stored value, can't be {@code null}.
+     */
+    public void setDecimal(ScaledDecimal value) {
+        Objects.requireNonNull(value, "Value can't be null!");
+        boolean negative = value.signum() < 0;
+        ScaledDecimal abs = negative ? value.negate() : value;
+        double doubleValue = abs.doubleValue();
+        store(Double.isFinite(doubleValue) ? abs : null, doubleValue, negative, false);
+    }
+
+    /**
+     * Stores the value and makes the calculator non editable.
+     * @param value absolute value, {@code null} if it is infinite or NaN.
+     * @param doubleValue absolute value as a {@code double}.
+     * @param negative indicates if the value is negative.
+     * @param setAsDouble indicates if the value was set as a {@code double}.
+     */
+    private void store(ScaledDecimal value, double doubleValue, boolean negative, boolean setAsDouble){
+        this.resetInput();
+        this.value = value;
+        this.doubleValue = doubleValue;
+        this.negative = negative;
+        this.setAsDouble = setAsDouble;
+        this.editable = false;
+        this.frozenValue = null;
+        fireValueChanged();
+    }
+
+    /**
+     * Vraća informaciju je li kalkulator editabilan (drugim riječima,
+     * smije li korisnik pozivati metode {@link #swapSign()},
+     * {@link #insertDecimalPoint()} te {@link #insertDigit(int)}).
+     * @return <code>true</code> ako je model editabilan, <code>false</code> inače
+     */
+    @Override
+    public boolean isEditable() {
+        return this.editable;
+    }
+
+    /**
+     * Resetira trenutnu vrijednost na neunesenu i vraća kalkulator u
+     * editabilno stanje.
+     */
+    @Override
+    public void clear() {
+        this.resetInput();
+        this.frozenValue = null;
+        this.editable = true;
+        fireValueChanged();
+    }
+
+    /**
+     * Obavlja sve što i {@link #clear()}, te dodatno uklanja aktivni
+     * operand i zakazanu operaciju.
+     */
+    @Override
+    public void clearAll() {
+        this.activeOperandSet = false;
+        this.activeOperand = null;
+        this.pendingOperation = null;
+        this.clear();
+    }
+
+    /**
+     * Mijenja predznak unesenog broja.
+     * @throws CalculatorInputException ako kalkulator nije editabilan
+     */
+    @Override
+    public void swapSign() throws CalculatorInputException {
+        if(!this.editable)
+            throw new CalculatorInputException("Calculator is not editable!");
+        this.negative = !negative;
+        this.frozenValue = null;
+        fireValueChanged();
+    }
+
+    /**
+     * Dodaje na kraj trenutnog broja decimalnu točku.
+     * @throws CalculatorInputException ako nije još unesena niti jedna znamenka broja,
+     * ako broj već sadrži decimalnu točku ili ako kalkulator nije editabilan
+     */
+    @Override
+    public void insertDecimalPoint() throws CalculatorInputException {
+        if(!editable || this.inputLength == 0 || this.decimalPoint)
+            throw new CalculatorInputException("Can't place decimal point!");
+
+        ensureInputCapacity(inputLength + 1);
+        this.input[inputLength++] = '.';
+        this.decimalPoint = true;
+        this.frozenValue = null;
+        fireValueChanged();
+    }
+
+    /**
+     * U broj koji se trenutno upisuje na kraj dodaje poslanu znamenku.
+     * Ako je trenutni broj "0", dodavanje još jedne nule se potiho
+     * ignorira. Broj se pamti točno, bez obzira na broj znamenki.
+     * @param digit znamenka koju treba dodati
+     * @throws CalculatorInputException ako bi dodavanjem predane znamenke broj postao prevelik za konačan prikaz u tipu {@link Double}, ili ako kalkulator nije editabilan.
+     * @throws IllegalArgumentException ako je <code>digit &lt; 0</code> ili <code>digit &gt; 9</code>
+     */
+    @Override
+    public void insertDigit(int digit) throws CalculatorInputException, IllegalArgumentException {
+        if(digit < 0 || digit > 9)
+            throw new IllegalArgumentException("Only single digit, positive numbers can be passed as arguments!");
+        if(!this.editable)
+            throw new CalculatorInputException("Calculator is not editable!");
+
+        // A lone leading zero is replaced by the next digit.
+        int position = (inputLength == 1 && input[0] == '0') ? 0 : inputLength;
+        boolean newMantissaExact = mantissaExact && mantissa <= MAX_MANTISSA;
+        long newMantissa = newMantissaExact ? mantissa * 10 + digit : 0;
+        int newScale = decimalPoint ? scale + 1 : scale;
+
+        ensureInputCapacity(position + 1);
+        char replaced = input[position];
+        input[position] = (char) ('0' + digit);
+
+        ScaledDecimal newValue;
+        double newDouble;
+        if(newMantissaExact && newMantissa >= 0) {
+            newValue = ScaledDecimal.of(newMantissa, newScale);
+            newDouble = newValue.doubleValue();
+        } else {
+            newMantissaExact = false;
+            newValue = ScaledDecimal.of(new BigDecimal(input, 0, position + 1));
+            newDouble = newValue.doubleValue();
+            if(Double.isInfinite(newDouble)) {
+                input[position] = replaced;
+                throw new CalculatorInputException("The new value cannot be NaN or infinite!");
+            }
+        }
+
+        this.inputLength = position + 1;
+        this.mantissa = newMantissa;
+        this.scale = newScale;
+        this.mantissaExact = newMantissaExact;
+        this.value = newValue;
+        this.doubleValue = newDouble;
+        this.frozenValue = null;
+        fireValueChanged();
+    }
+
+    /**
+     * Provjera je li upisan aktivni operand.
+     * @return <code>true</code> ako je aktivani operand upisan, <code>false</code> inače
+     */
+    @Override
+    public boolean isActiveOperandSet() {
+        return this.activeOperandSet;
+    }
+
+    /**
+     * Dohvat aktivnog operanda.
+     * @return aktivni operand
+     * @throws IllegalStateException ako aktivni operand nije postavljen
+     */
+    @Override
+    public double getActiveOperand() throws IllegalStateException {
+        if(!activeOperandSet)
+            throw new IllegalStateException();
+        return this.activeDouble;
+    }
+
+    /**
+     * Returns the exact active operand.
+     * @return active operand, or {@code null} if it is infinite or NaN.
+     * @throws IllegalStateException if the active operand is not set.
+     */
+    public ScaledDecimal getActiveDecimal() {
+        if(!activeOperandSet)
+            throw new IllegalStateException();
+        return this.activeOperand;
+    }
+
+    /**
+     * Metoda postavlja aktivni operand na predanu vrijednost.
+     * Ako kalkulator već ima postavljen aktivni operand, predana
+     * vrijednost ga nadjačava.
+     * @param activeOperand vrijednost koju treba pohraniti kao aktivni operand
+     */
+    @Override
+    public void setActiveOperand(double activeOperand) {
+        this.activeOperand = Double.isFinite(activeOperand) ? ScaledDecimal.valueOf(activeOperand) : null;
+        this.activeDouble = activeOperand;
+        this.activeOperandSet = true;
+    }
+
+    /**
+     * Sets the exact active operand, overriding the one already set.
+     * @param activeOperand active operand, can't be {@code null}.
+     */
+    public void setActiveDecimal(ScaledDecimal activeOperand) {
+        this.activeOperand = Objects.requireNonNull(activeOperand, "Operand can't be null!");
+        this.activeDouble = activeOperand.doubleValue();
+        this.activeOperandSet = true;
+    }
+
+    /**
+     * Uklanjanje zapisanog aktivnog operanda.
+     */
+    @Override
+    public void clearActiveOperand() {
+        this.activeOperandSet = false;
+        this.activeOperand = null;
+    }
+
+    /**
+     * Dohvat zakazane operacije.
+     * @return zakazanu operaciju, ili <code>null</code> ako nema zakazane operacije
+     */
+    @Override
+    public DoubleBinaryOperator getPendingBinaryOperation() {
+        return pendingOperation;
+    }
+
+    /**
+     * Postavljanje zakazane operacije. Ako zakazana operacija već
+     * postoji, ovaj je poziv nadjačava predanom vrijednošću.
+     * @param op zakazana operacija koju treba postaviti; smije biti <code>null</code>
+     */
+    @Override
+    public void setPendingBinaryOperation(DoubleBinaryOperator op) {
+        this.pendingOperation = op;
+    }
+
+    /**
+     * Vraća tekst koji treba prikazati na zaslonu kalkulatora.
+     * Upisani broj prikazuje se onako kako je upisan, vrijednost postavljena
+     * kao <code>double</code> isto kao u {@link CalcModelImpl}, a izračunata
+     * vrijednost kao decimalni broj, s eksponentom samo ako je vrlo velika
+     * ili vrlo mala (vidi {@link ScaledDecimal#toString()}).
+     * @return tekst za prikaz na zaslonu kalkulatora
+     */
+    @Override
+    public String toString(){
+        if(frozenValue == null)
+            this.frozenValue = appendTo(new StringBuilder(inputLength + 2)).toString();
+        return frozenValue;
+    }
+
+    /**
+     * Dodaje tekst koji treba prikazati na zaslonu kalkulatora na kraj
+     * predanog spremnika.
+     * @param sb spremnik; ne smije biti <code>null</code>
+     * @return predani spremnik
+     */
+    @Override
+    public StringBuilder appendTo(StringBuilder sb){
+        Objects.requireNonNull(sb, "StringBuilder can't be null!");
+        if(frozenValue != null)
+            return sb.append(frozenValue);
+        if(negative)
+            sb.append('-');
+        if(!editable)
+            return value == null || setAsDouble ? sb.append(doubleValue) : sb.append(value);
+        if(inputLength == 0)
+            return sb.append('0');
+        return sb.append(input, 0, inputLength);
+    }
+
+    /**
+     * Započinje grupu promjena. Sve do odgovarajućeg poziva
+     * {@link #endUpdate()} promatrači se ne obavještavaju o promjenama,
+     * već se po završetku grupe obavještavaju jednom, o konačnom stanju.
+     */
+    @Override
+    public void beginUpdate() {
+        this.updateDepth++;
+    }
+
+    /**
+     * Završava grupu promjena započetu pozivom {@link #beginUpdate()}.
+     * @throws IllegalStateException ako grupa promjena nije započeta
+     */
+    @Override
+    public void endUpdate() {
+        if(updateDepth == 0)
+            throw new IllegalStateException("No update in progress!");
+        if(--updateDepth == 0 && updateChanged){
+            this.updateChanged = false;
+            fireValueChanged();
+        }
+    }
+
+    /**
+     * Notifies the listeners, or just records the change while a group of changes is in progress.
+     */
+    private void fireValueChanged(){
+        if(updateDepth > 0){
+            this.updateChanged = true;
+            return;
+        }
+        listeners.fire(this);
+    }
+
+    /**
+     * Empties the input buffer and sets the value to zero.
+     */
+    private void resetInput(){
+        this.inputLength = 0;
+        this.decimalPoint = false;
+        this.mantissa = 0;
+        this.scale = 0;
+        this.mantissaExact = true;
+        this.value = ScaledDecimal.ZERO;
+        this.doubleValue = 0.;
+    }
+
+    /**
+     * Grows the input buffer so it can hold at least {@code capacity} characters.
+     * @param capacity required capacity.
+     */
+    private void ensureInputCapacity(int capacity){
+        if(capacity > input.length)
+            this.input = Arrays.copyOf(input, Math.max(capacity, 2 * input.length));
+    }
+}
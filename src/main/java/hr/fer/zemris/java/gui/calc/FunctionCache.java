@@ -0,0 +1,227 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Bounded cache of the results of a pure function of a {@code double}, which is itself the function.
+ * <p>
+ * Arguments are keyed by their bits, so {@code 0.0} and {@code -0.0} are different arguments. Entries are
+ * kept in primitive arrays grouped in sets of {@value #WAYS} entries, and the set of an argument is chosen
+ * by its hash. A full set evicts an entry with the CLOCK algorithm: every hit marks the entry as
+ * referenced, and the hand of the set moves over the entries, clearing the marks, until it finds an
+ * unmarked entry.
+ * <p>
+ * The cache may be used from several threads. Each set has a version which is odd while the set is
+ * being changed, and a lookup which sees the version change treats the argument as missing, so it can
+ * only compute the result again and never returns a result of a different argument. A thread which
+ * finds its set being changed by another doesn't store its result.
+ * @author MatijaPav
+ */
+public class FunctionCache implements DoubleUnaryOperator {
+    /**
+     * Number of entries in a set.
+     */
+    static final int WAYS = 4;
+
+    /**
+     * Smallest number of sets.
+     */
+    private static final int MIN_SETS = 2;
+
+    /**
+     * Marks of the entries.
+     */
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+    private static final byte REFERENCED = 2;
+
+    /**
+     * Access to the versions of the sets with memory ordering.
+     */
+    private static final VarHandle VERSIONS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * Cached function.
+     */
+    private final DoubleUnaryOperator function;
+
+    /**
+     * Bits of the arguments of the entries.
+     */
+    private final long[] keys;
+
+    /**
+     * Results of the entries.
+     */
+    private final double[] values;
+
+    /**
+     * Marks of the entries. Entries never become empty again, so a lookup may mark an entry as
+     * referenced without holding its set.
+     */
+    private final byte[] marks;
+
+    /**
+     * Version of each set, odd while the set is being changed.
+     */
+    private final int[] versions;
+
+    /**
+     * Position of the CLOCK hand in each set.
+     */
+    private final byte[] hands;
+
+    /**
+     * Shift selecting the bits of the hash which index the sets.
+     */
+    private final int setShift;
+
+    /**
+     * Number of lookups which found their argument.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of lookups which computed the result.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache.
+     * @param function cached function, which must always return the same result for the same argument.
+     * @param capacity largest number of cached results, rounded up to a power of two of at least
+     * {@code 2 * WAYS}.
+     * @throws IllegalArgumentException if the capacity isn't positive or is larger than {@code 2^30}.
+     */
+    public FunctionCache(DoubleUnaryOperator function, int capacity){
+        this.function = Objects.requireNonNull(function, "Function can't be null!");
+        if(capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30!");
+        int sets = Math.max(MIN_SETS, Integer.highestOneBit(capacity - 1) * 2 / WAYS);
+        this.keys = new long[sets * WAYS];
+        this.values = new double[sets * WAYS];
+        this.marks = new byte[sets * WAYS];
+        this.versions = new int[sets];
+        this.hands = new byte[sets];
+        this.setShift = Long.SIZE - Integer.numberOfTrailingZeros(sets);
+    }
+
+    /**
+     * Returns the cached result for the argument, computing and caching it if it isn't cached.
+     * @param operand argument of the function.
+     * @return result of the function.
+     */
+    @Override
+    public double applyAsDouble(double operand) {
+        long key = Double.doubleToRawLongBits(operand);
+        int set = set(key);
+        int version = (int) VERSIONS.getAcquire(versions, set);
+        if((version & 1) == 0){
+            for(int i = set * WAYS, end = i + WAYS; i < end; i++){
+                if(marks[i] != EMPTY && keys[i] == key){
+                    double value = values[i];
+                    VarHandle.acquireFence();
+                    if(versions[set] != version)
+                        break;
+                    marks[i] = REFERENCED;
+                    hits.increment();
+                    return value;
+                }
+            }
+        }
+
+        double value = function.applyAsDouble(operand);
+        misses.increment();
+        store(set, key, value);
+        return value;
+    }
+
+    /**
+     * Stores the result into its set, unless another thread is changing the set.
+     * @param set index of the set.
+     * @param key bits of the argument.
+     * @param value result.
+     */
+    private void store(int set, long key, double value){
+        int version = (int) VERSIONS.getAcquire(versions, set);
+        if((version & 1) != 0 || !VERSIONS.compareAndSet(versions, set, version, version + 1))
+            return;
+        try {
+            int base = set * WAYS;
+            for(int i = base; i < base + WAYS; i++){
+                if(marks[i] != EMPTY && keys[i] == key)
+                    return;
+            }
+            int hand = hands[set];
+            while(marks[base + hand] == REFERENCED){
+                marks[base + hand] = PRESENT;
+                hand = (hand + 1) & (WAYS - 1);
+            }
+            keys[base + hand] = key;
+            values[base + hand] = value;
+            marks[base + hand] = PRESENT;
+            hands[set] = (byte) ((hand + 1) & (WAYS - 1));
+        } finally {
+            VERSIONS.setRelease(versions, set, version + 2);
+        }
+    }
+
+    /**
+     * Finds the set by Fibonacci hashing. It takes the highest bits of the product, because the lowest ones
+     * depend only on the lowest bits of the argument, which are zero for whole numbers and other
+     * {@code double}s with short mantissas.
+     * @param key bits of the argument.
+     * @return index of the set of the argument.
+     */
+    private int set(long key){
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> setShift);
+    }
+
+    /**
+     * @return largest number of cached results.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return number of lookups which found their argument in the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups which computed the result.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return ratio of hits to all lookups, or 0 if there were no lookups.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Resets the hit and miss counts.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FunctionCache[capacity=%d, hits=%d, misses=%d, hit rate=%.3f]",
+            capacity(), getHitCount(), getMissCount(), getHitRate());
+    }
+}
@@ -0,0 +1,156 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Stack of {@code double}s for calculations in reverse Polish notation, kept in a growable primitive array.
+ * Operations never throw on a stack with too few elements: {@link #pop()} and {@link #peek()} return
+ * {@link Double#NaN}, and the other operations leave the stack unchanged and return {@code false}.
+ * <p>
+ * The stack is not thread safe.
+ * @author MatijaPav
+ */
+public class RpnStack {
+    /**
+     * Initial capacity of the stack.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Elements of the stack, the top one at {@code size - 1}.
+     */
+    private double[] elements = new double[INITIAL_CAPACITY];
+
+    /**
+     * Number of elements.
+     */
+    private int size;
+
+    /**
+     * Pushes the value on the top of the stack.
+     * @param value pushed value.
+     */
+    public void push(double value){
+        if(size == elements.length)
+            elements = Arrays.copyOf(elements, 2 * size);
+        elements[size++] = value;
+    }
+
+    /**
+     * Removes the top element.
+     * @return removed element, or {@link Double#NaN} if the stack is empty.
+     */
+    public double pop(){
+        return size == 0 ? Double.NaN : elements[--size];
+    }
+
+    /**
+     * @return top element, or {@link Double#NaN} if the stack is empty.
+     */
+    public double peek(){
+        return size == 0 ? Double.NaN : elements[size - 1];
+    }
+
+    /**
+     * @param depth position of the element, 0 for the top one.
+     * @return element at the given depth, or {@link Double#NaN} if there is no such element.
+     */
+    public double peek(int depth){
+        return depth < 0 || depth >= size ? Double.NaN : elements[size - 1 - depth];
+    }
+
+    /**
+     * Pushes a copy of the top element.
+     * @return {@code false} if the stack is empty.
+     */
+    public boolean dup(){
+        if(size == 0)
+            return false;
+        push(elements[size - 1]);
+        return true;
+    }
+
+    /**
+     * Exchanges the two topmost elements.
+     * @return {@code false} if the stack has fewer than two elements.
+     */
+    public boolean swap(){
+        if(size < 2)
+            return false;
+        double top = elements[size - 1];
+        elements[size - 1] = elements[size - 2];
+        elements[size - 2] = top;
+        return true;
+    }
+
+    /**
+     * Moves the third element from the top to the top, so {@code a b c} becomes {@code b c a}.
+     * @return {@code false} if the stack has fewer than three elements.
+     */
+    public boolean rotate(){
+        if(size < 3)
+            return false;
+        double third = elements[size - 3];
+        elements[size - 3] = elements[size - 2];
+        elements[size - 2] = elements[size - 1];
+        elements[size - 1] = third;
+        return true;
+    }
+
+    /**
+     * Replaces the top element with the result of the function applied to it.
+     * @param function applied function.
+     * @return {@code false} if the stack is empty.
+     */
+    public boolean apply(DoubleUnaryOperator function){
+        if(size == 0)
+            return false;
+        elements[size - 1] = function.applyAsDouble(elements[size - 1]);
+        return true;
+    }
+
+    /**
+     * Replaces the two topmost elements with the result of the operation, whose right operand is the top one.
+     * @param operator applied operation.
+     * @return {@code false} if the stack has fewer than two elements.
+     */
+    public boolean apply(DoubleBinaryOperator operator){
+        if(size < 2)
+            return false;
+        double result = operator.applyAsDouble(elements[size - 2], elements[size - 1]);
+        elements[size - 2] = result;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if the stack has no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return elements from the bottom to the top, for example {@code [1.0, 2.0]}.
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(elements, size));
+    }
+}
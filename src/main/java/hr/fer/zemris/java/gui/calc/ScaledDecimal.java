@@ -0,0 +1,361 @@
+package hr.fer.zemris.java.gui.calc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Objects;
+
+/**
+ * Immutable exact decimal number. Numbers whose unscaled value fits a {@code long} and whose scale is
+ * between 0 and {@value #MAX_COMPACT_SCALE} are kept as a {@code long} and a scale, and arithmetic on them
+ * stays in {@code long} arithmetic while the results fit. Other numbers are kept as {@link BigDecimal}s.
+ * <p>
+ * Equality is numerical, so {@code 1.0} equals {@code 1.00}, while {@link #toString()} keeps the scale.
+ * @author MatijaPav
+ */
+public final class ScaledDecimal implements Comparable<ScaledDecimal> {
+    /**
+     * Largest scale of a compact number.
+     */
+    private static final int MAX_COMPACT_SCALE = 18;
+
+    /**
+     * Number of decimal digits which always fit a {@code long}.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    /**
+     * Powers of ten which fit a {@code long}.
+     */
+    private static final long[] POWERS_OF_TEN = new long[MAX_COMPACT_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for(int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+    }
+
+    /**
+     * Largest unscaled value which is still exactly representable as a {@code double}.
+     */
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    /**
+     * Zero.
+     */
+    public static final ScaledDecimal ZERO = new ScaledDecimal(0, 0);
+
+    /**
+     * Largest decimal exponent of numbers shown without an exponent by {@link #toString()}.
+     */
+    static final int MAX_PLAIN_EXPONENT = 40;
+
+    /**
+     * Unscaled value of a compact number.
+     */
+    private final long unscaled;
+
+    /**
+     * Scale of a compact number.
+     */
+    private final int scale;
+
+    /**
+     * Value of a number which is not compact, {@code null} for compact numbers.
+     */
+    private final BigDecimal big;
+
+    /**
+     * Creates a compact number.
+     * @param unscaled unscaled value.
+     * @param scale scale, between 0 and {@value #MAX_COMPACT_SCALE}.
+     */
+    private ScaledDecimal(long unscaled, int scale){
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = null;
+    }
+
+    /**
+     * Creates a number which is not compact.
+     * @param big value.
+     */
+    private ScaledDecimal(BigDecimal big){
+        this.unscaled = 0;
+        this.scale = 0;
+        this.big = big;
+    }
+
+    /**
+     * Returns the number {@code unscaled * 10^-scale}.
+     * @param unscaled unscaled value.
+     * @param scale scale.
+     * @return number.
+     */
+    public static ScaledDecimal of(long unscaled, int scale){
+        if(scale >= 0 && scale <= MAX_COMPACT_SCALE)
+            return new ScaledDecimal(unscaled, scale);
+        return new ScaledDecimal(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    /**
+     * Returns the number with the given value, compact if it fits.
+     * @param value value, can't be {@code null}.
+     * @return number.
+     */
+    public static ScaledDecimal of(BigDecimal value){
+        Objects.requireNonNull(value, "Value can't be null!");
+        int scale = value.scale();
+        if(scale >= 0 && scale <= MAX_COMPACT_SCALE) {
+            BigInteger unscaled = value.unscaledValue();
+            if(unscaled.bitLength() < Long.SIZE)
+                return new ScaledDecimal(unscaled.longValue(), scale);
+        }
+        return new ScaledDecimal(value);
+    }
+
+    /**
+     * Returns the number with the shortest decimal representation which converts back to the given
+     * {@code double}, the one {@link Double#toString(double)} shows, without trailing zeros.
+     * @param value finite value.
+     * @return number.
+     * @throws NumberFormatException if the value is infinite or NaN.
+     */
+    public static ScaledDecimal valueOf(double value){
+        if(value == 0)
+            return ZERO;
+        BigDecimal decimal = BigDecimal.valueOf(value).stripTrailingZeros();
+        // whole numbers which fit a long are kept compact
+        if(decimal.scale() < 0 && decimal.precision() - decimal.scale() <= MAX_LONG_DIGITS)
+            decimal = decimal.setScale(0);
+        return of(decimal);
+    }
+
+    /**
+     * Parses a number from its decimal representation.
+     * @param text text to parse, can't be {@code null}.
+     * @return parsed number.
+     * @throws NumberFormatException if the text is not a decimal number.
+     */
+    public static ScaledDecimal parse(String text){
+        Objects.requireNonNull(text, "Text can't be null!");
+        return of(new BigDecimal(text));
+    }
+
+    /**
+     * @return {@code true} if the number is kept as a {@code long} and a scale.
+     */
+    public boolean isCompact() {
+        return big == null;
+    }
+
+    /**
+     * @return -1, 0 or 1 as the number is negative, zero or positive.
+     */
+    public int signum() {
+        return big == null ? Long.signum(unscaled) : big.signum();
+    }
+
+    /**
+     * @return scale of the number.
+     */
+    public int scale() {
+        return big == null ? scale : big.scale();
+    }
+
+    /**
+     * @return the number as a {@link BigDecimal}.
+     */
+    public BigDecimal toBigDecimal() {
+        return big == null ? BigDecimal.valueOf(unscaled, scale) : big;
+    }
+
+    /**
+     * @return the number rounded to the closest {@code double}.
+     */
+    public double doubleValue() {
+        if(big == null && unscaled > -MAX_EXACT_DOUBLE && unscaled < MAX_EXACT_DOUBLE)
+            return unscaled / (double) POWERS_OF_TEN[scale];
+        return toBigDecimal().doubleValue();
+    }
+
+    /**
+     * @return the number with the opposite sign.
+     */
+    public ScaledDecimal negate() {
+        if(big == null && unscaled != Long.MIN_VALUE)
+            return new ScaledDecimal(-unscaled, scale);
+        return of(toBigDecimal().negate());
+    }
+
+    /**
+     * @param other number to add, can't be {@code null}.
+     * @return exact sum of the numbers.
+     */
+    public ScaledDecimal add(ScaledDecimal other) {
+        if(big == null && other.big == null) {
+            int s = Math.max(scale, other.scale);
+            long left = rescale(unscaled, s - scale);
+            long right = rescale(other.unscaled, s - other.scale);
+            long sum = left + right;
+            if(left != Long.MIN_VALUE && right != Long.MIN_VALUE && ((left ^ sum) & (right ^ sum)) >= 0)
+                return new ScaledDecimal(sum, s);
+        }
+        return of(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    /**
+     * @param other number to subtract, can't be {@code null}.
+     * @return exact difference of the numbers.
+     */
+    public ScaledDecimal subtract(ScaledDecimal other) {
+        return add(other.negate());
+    }
+
+    /**
+     * @param other number to multiply with, can't be {@code null}.
+     * @return exact product of the numbers.
+     */
+    public ScaledDecimal multiply(ScaledDecimal other) {
+        if(big == null && other.big == null && scale + other.scale <= MAX_COMPACT_SCALE) {
+            long high = Math.multiplyHigh(unscaled, other.unscaled);
+            long low = unscaled * other.unscaled;
+            if((high == 0 && low >= 0) || (high == -1 && low < 0))
+                return new ScaledDecimal(low, scale + other.scale);
+        }
+        return of(toBigDecimal().multiply(other.toBigDecimal()));
+    }
+
+    /**
+     * @param other divisor, can't be {@code null}.
+     * @param mc precision and rounding of the quotient.
+     * @return quotient of the numbers.
+     * @throws ArithmeticException if the divisor is zero, or if the precision is unlimited and the quotient
+     * has no finite decimal representation.
+     */
+    public ScaledDecimal divide(ScaledDecimal other, MathContext mc) {
+        if(big == null && other.big == null && other.unscaled != 0 && other.scale == 0
+                && unscaled % other.unscaled == 0 && unscaled != Long.MIN_VALUE)
+            return new ScaledDecimal(unscaled / other.unscaled, scale).round(mc);
+        return of(toBigDecimal().divide(other.toBigDecimal(), mc));
+    }
+
+    /**
+     * @param n exponent.
+     * @param mc precision and rounding of the result.
+     * @return number raised to the given power.
+     * @throws ArithmeticException if the exponent is negative and the precision is unlimited, or if the
+     * number is zero and the exponent negative.
+     */
+    public ScaledDecimal pow(int n, MathContext mc) {
+        return of(toBigDecimal().pow(n, mc));
+    }
+
+    /**
+     * @param mc precision and rounding.
+     * @return number rounded to the given precision.
+     */
+    public ScaledDecimal round(MathContext mc) {
+        int precision = mc.getPrecision();
+        if(precision == 0 || (big == null && (precision >= 19
+                || (unscaled > -POWERS_OF_TEN[precision] && unscaled < POWERS_OF_TEN[precision]))))
+            return this;
+        BigDecimal value = toBigDecimal();
+        BigDecimal rounded = value.round(mc);
+        return rounded == value ? this : of(rounded);
+    }
+
+    /**
+     * Multiplies the unscaled value by a power of ten, saturating on overflow so that the following
+     * overflow check of the sum fails.
+     * @param value unscaled value.
+     * @param exponent exponent of ten.
+     * @return {@code value * 10^exponent}, or {@link Long#MIN_VALUE} on overflow.
+     */
+    private static long rescale(long value, int exponent) {
+        if(exponent == 0)
+            return value;
+        long power = POWERS_OF_TEN[exponent];
+        long high = Math.multiplyHigh(value, power);
+        long low = value * power;
+        if((high == 0 && low >= 0) || (high == -1 && low < 0))
+            return low;
+        return Long.MIN_VALUE;
+    }
+
+    @Override
+    public int compareTo(ScaledDecimal other) {
+        if(big == null && other.big == null && scale == other.scale)
+            return Long.compare(unscaled, other.unscaled);
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScaledDecimal)) {
+            return false;
+        }
+        return compareTo((ScaledDecimal) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(doubleValue());
+    }
+
+    /**
+     * @return plain decimal representation of the number, or scientific notation such as {@code 1.5E-45}
+     * if the absolute value of its decimal exponent is larger than {@value #MAX_PLAIN_EXPONENT}.
+     */
+    @Override
+    public String toString() {
+        if(big != null || unscaled == Long.MIN_VALUE) {
+            BigDecimal value = toBigDecimal();
+            int exponent = value.precision() - value.scale() - 1;
+            if(value.signum() != 0 && Math.abs(exponent) > MAX_PLAIN_EXPONENT)
+                return toScientificString(value, exponent);
+            return value.toPlainString();
+        }
+        if(scale == 0)
+            return Long.toString(unscaled);
+        String digits = Long.toString(Math.abs(unscaled));
+        StringBuilder sb = new StringBuilder(digits.length() + scale + 3);
+        if(unscaled < 0)
+            sb.append('-');
+        int point = digits.length() - scale;
+        if(point <= 0) {
+            sb.append("0.");
+            for(int i = point; i < 0; i++)
+                sb.append('0');
+            sb.append(digits);
+        } else {
+            sb.append(digits, 0, point).append('.').append(digits, point, digits.length());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats the number with one digit before the decimal point, as {@link Double#toString(double)} does.
+     * @param value formatted number, not zero.
+     * @param exponent decimal exponent of the first digit.
+     * @return scientific representation of the number.
+     */
+    private static String toScientificString(BigDecimal value, int exponent) {
+        String digits = value.unscaledValue().abs().toString();
+        int length = digits.length();
+        while(length > 1 && digits.charAt(length - 1) == '0')
+            length--;
+        StringBuilder sb = new StringBuilder(length + 8);
+        if(value.signum() < 0)
+            sb.append('-');
+        sb.append(digits.charAt(0)).append('.');
+        if(length == 1)
+            sb.append('0');
+        else
+            sb.append(digits, 1, length);
+        return sb.append('E').append(exponent).toString();
+    }
+}
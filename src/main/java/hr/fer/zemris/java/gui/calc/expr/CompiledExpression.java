@@ -0,0 +1,14 @@
+package hr.fer.zemris.java.gui.calc.expr;
+
+/**
+ * Code of an {@link Expression} compiled into a class by {@link ExpressionCompiler}.
+ * @author MatijaPav
+ */
+interface CompiledExpression {
+    /**
+     * Evaluates the expression.
+     * @param values values of the variables, in order in which they were declared.
+     * @return value of the expression.
+     */
+    double evaluate(double[] values);
+}
@@ -0,0 +1,284 @@
+package hr.fer.zemris.java.gui.calc.expr;
+
+import hr.fer.zemris.java.gui.calc.CalcFunction;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@code Expression} is an infix expression compiled into compact stack machine code, which can be
+ * evaluated repeatedly for different values of its variables without parsing it again.
+ * <p>
+ * Expressions are built from numbers, variables, constants {@code pi} and {@code e}, operators
+ * {@code + - * / ^} with the usual precedence ({@code ^} is right associative and binds tighter than
+ * unary minus), parentheses, functions of one argument named by the {@link CalcFunction} labels
+ * ({@code sin}, {@code arcsin}, {@code cos}, {@code arccos}, {@code tan}, {@code arctan}, {@code ctg},
+ * {@code arcctg}, {@code log}, {@code ln}, {@code prime}) or by aliases {@code exp10} ({@code 10^x}),
+ * {@code exp} ({@code e^x}) and {@code recip} ({@code 1/x}), and functions {@code pow(x, n)} and
+ * {@code root(x, n)}. Subexpressions without variables are calculated at compile time.
+ * <p>
+ * Expressions are interpreted at first. After {@value #COMPILE_THRESHOLD} evaluations an expression is compiled
+ * into a hidden class, which the JIT compiler can inline into the evaluating code, and evaluated by it from
+ * then on. If the compilation fails the expression stays interpreted.
+ * <p>
+ * Expressions are immutable and may be evaluated from several threads at once.
+ * @author MatijaPav
+ */
+public final class Expression {
+    /**
+     * Pushes the constant whose index is the argument.
+     */
+    static final int CONST = 0;
+
+    /**
+     * Pushes the variable whose index is the argument.
+     */
+    static final int VAR = 1;
+
+    /**
+     * Negates the top of the stack.
+     */
+    static final int NEG = 2;
+
+    /**
+     * Applies the {@link CalcFunction} whose ordinal is the argument to the top of the stack.
+     */
+    static final int FUNCTION = 3;
+
+    /**
+     * Binary operations, replacing the two topmost elements of the stack with the result.
+     */
+    static final int ADD = 4;
+    static final int SUB = 5;
+    static final int MUL = 6;
+    static final int DIV = 7;
+    static final int POW = 8;
+    static final int ROOT = 9;
+
+    /**
+     * Number of bits of the opcode in an instruction, the argument is in the remaining bits.
+     */
+    static final int OPCODE_BITS = 8;
+
+    /**
+     * Number of interpreted evaluations after which an expression is compiled.
+     */
+    static final int COMPILE_THRESHOLD = 10_000;
+
+    /**
+     * Functions by ordinal.
+     */
+    private static final CalcFunction[] FUNCTIONS = CalcFunction.values();
+
+    /**
+     * Source of the expression.
+     */
+    private final String source;
+
+    /**
+     * Names of the variables, in order of their values.
+     */
+    private final String[] variables;
+
+    /**
+     * Instructions, each an opcode and an argument.
+     */
+    private final int[] code;
+
+    /**
+     * Constants used by the instructions.
+     */
+    private final double[] constants;
+
+    /**
+     * Largest depth of the stack during evaluation.
+     */
+    private final int maxDepth;
+
+    /**
+     * Compiled code, {@code null} while the expression is interpreted.
+     */
+    private volatile CompiledExpression compiled;
+
+    /**
+     * Number of interpreted evaluations. It is counted without synchronization, so concurrent evaluations
+     * may delay the compilation or compile the expression twice, which is harmless.
+     */
+    private int evaluations;
+
+    Expression(String source, String[] variables, int[] code, double[] constants, int maxDepth){
+        this.source = source;
+        this.variables = variables;
+        this.code = code;
+        this.constants = constants;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Compiles the expression.
+     * @param source expression text.
+     * @param variables names of the variables used by the expression, in order of their values.
+     * @return compiled expression.
+     * @throws ExpressionException if the expression is not valid or uses an undeclared variable.
+     */
+    public static Expression compile(String source, String... variables){
+        Objects.requireNonNull(source, "Expression can't be null!");
+        Objects.requireNonNull(variables, "Variables can't be null!");
+        return new ExpressionParser(source, variables.clone()).parse();
+    }
+
+    /**
+     * Evaluates the expression.
+     * @param values values of the variables, in order in which they were declared.
+     * @return value of the expression.
+     * @throws IllegalArgumentException if the number of values differs from the number of variables.
+     */
+    public double evaluate(double... values){
+        if(values.length != variables.length)
+            throw new IllegalArgumentException("Expected " + variables.length + " values, got " + values.length + "!");
+        CompiledExpression code = compiled;
+        if(code != null)
+            return code.evaluate(values);
+        return evaluate(values, new double[maxDepth]);
+    }
+
+    /**
+     * Evaluates the expression using the given stack, so that repeated evaluation doesn't allocate.
+     * @param values values of the variables, in order in which they were declared.
+     * @param stack stack of at least {@link #getMaxDepth()} elements, unused once the expression is compiled.
+     * @return value of the expression.
+     */
+    public double evaluate(double[] values, double[] stack){
+        CompiledExpression code = compiled;
+        if(code != null)
+            return code.evaluate(values);
+        if(++evaluations == COMPILE_THRESHOLD)
+            promote();
+        return interpret(values, stack);
+    }
+
+    /**
+     * Compiles the expression into a class used by all following evaluations, unless it is already compiled.
+     * @return {@code true} if the expression is compiled.
+     */
+    boolean promote(){
+        if(compiled == null) {
+            try {
+                compiled = ExpressionCompiler.compile(this);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return false;
+            }
+        }
+        return compiled != null;
+    }
+
+    /**
+     * @return {@code true} if the expression was compiled into a class.
+     */
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    /**
+     * Evaluates the expression by interpreting its instructions.
+     * @param values values of the variables, in order in which they were declared.
+     * @param stack stack of at least {@link #getMaxDepth()} elements.
+     * @return value of the expression.
+     */
+    double interpret(double[] values, double[] stack){
+        int top = -1;
+        for(int instruction : code){
+            int argument = instruction >>> OPCODE_BITS;
+            switch (instruction & ((1 << OPCODE_BITS) - 1)){
+                case CONST: stack[++top] = constants[argument]; break;
+                case VAR: stack[++top] = values[argument]; break;
+                case NEG: stack[top] = -stack[top]; break;
+                case FUNCTION: stack[top] = FUNCTIONS[argument].applyAsDouble(stack[top]); break;
+                case ADD: stack[top - 1] += stack[top--]; break;
+                case SUB: stack[top - 1] -= stack[top--]; break;
+                case MUL: stack[top - 1] *= stack[top--]; break;
+                case DIV: stack[top - 1] /= stack[top--]; break;
+                case POW: stack[top - 1] = Math.pow(stack[top - 1], stack[top--]); break;
+                case ROOT: stack[top - 1] = Math.pow(stack[top - 1], 1 / stack[top--]); break;
+                default: throw new IllegalStateException("Invalid instruction " + instruction + "!");
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * @return names of the variables, in order of their values.
+     */
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    /**
+     * @return number of stack elements needed for evaluation.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return instructions of the expression.
+     */
+    int[] code() {
+        return code;
+    }
+
+    /**
+     * @return constants used by the instructions.
+     */
+    double[] constants() {
+        return constants;
+    }
+
+    /**
+     * @return source of the expression.
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Calculates the binary operation.
+     * @param opcode opcode of the operation.
+     * @param left left operand.
+     * @param right right operand.
+     * @return result of the operation.
+     */
+    static double apply(int opcode, double left, double right){
+        switch (opcode){
+            case ADD: return left + right;
+            case SUB: return left - right;
+            case MUL: return left * right;
+            case DIV: return left / right;
+            case POW: return Math.pow(left, right);
+            case ROOT: return Math.pow(left, 1 / right);
+            default: throw new IllegalArgumentException("Not a binary operation: " + opcode);
+        }
+    }
+
+    /**
+     * @return readable listing of the instructions, for debugging.
+     */
+    String disassemble(){
+        String[] names = {"const", "var", "neg", "function", "add", "sub", "mul", "div", "pow", "root"};
+        StringBuilder sb = new StringBuilder();
+        for(int instruction : code){
+            int opcode = instruction & ((1 << OPCODE_BITS) - 1);
+            int argument = instruction >>> OPCODE_BITS;
+            sb.append(names[opcode]);
+            if(opcode == CONST)
+                sb.append(' ').append(constants[argument]);
+            else if(opcode == VAR)
+                sb.append(' ').append(variables[argument]);
+            else if(opcode == FUNCTION)
+                sb.append(' ').append(FUNCTIONS[argument].getLabel());
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,379 @@
+package hr.fer.zemris.java.gui.calc.expr;
+
+import hr.fer.zemris.java.gui.calc.CalcFunction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+import static hr.fer.zemris.java.gui.calc.expr.Expression.*;
+
+/**
+ * Compiles {@link Expression} instructions into a hidden class implementing {@link CompiledExpression}, so
+ * that the JIT compiler sees the expression as ordinary straight line code and can inline it into the caller.
+ * Constants become constant pool entries, variables array loads and the functions which are plain
+ * {@link Math} methods direct calls of those methods. Other functions are called through their
+ * {@link CalcFunction} constant.
+ * <p>
+ * Classes are defined without a strong reference from their class loader, so they are unloaded together
+ * with the expressions using them.
+ * @author MatijaPav
+ */
+final class ExpressionCompiler {
+    /**
+     * Lookup defining the hidden classes in this package.
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * Name of the compiled classes; the JVM appends a unique suffix to the name of each hidden class.
+     */
+    private static final String CLASS_NAME = "hr/fer/zemris/java/gui/calc/expr/CompiledExpressionImpl";
+
+    private static final String INTERFACE_NAME = "hr/fer/zemris/java/gui/calc/expr/CompiledExpression";
+
+    private static final String FUNCTION_NAME = "hr/fer/zemris/java/gui/calc/CalcFunction";
+
+    /**
+     * Names of the {@link Math} methods computing the functions, {@code null} for functions which
+     * are called through their constant.
+     */
+    private static final String[] MATH_METHODS = new String[CalcFunction.values().length];
+
+    static {
+        MATH_METHODS[CalcFunction.SIN.ordinal()] = "sin";
+        MATH_METHODS[CalcFunction.ARCSIN.ordinal()] = "asin";
+        MATH_METHODS[CalcFunction.COS.ordinal()] = "cos";
+        MATH_METHODS[CalcFunction.ARCCOS.ordinal()] = "acos";
+        MATH_METHODS[CalcFunction.TAN.ordinal()] = "tan";
+        MATH_METHODS[CalcFunction.ARCTAN.ordinal()] = "atan";
+        MATH_METHODS[CalcFunction.LOG.ordinal()] = "log10";
+        MATH_METHODS[CalcFunction.LN.ordinal()] = "log";
+    }
+
+    /**
+     * Largest length of the code of a method.
+     */
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    /**
+     * Version of the generated class files, Java 15.
+     */
+    private static final int CLASS_VERSION = 59;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    /**
+     * Bytecode instructions used by the generated code.
+     */
+    private static final int DCONST_1 = 0x0f;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD_2 = 0x28;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DALOAD = 0x31;
+    private static final int DSTORE_2 = 0x49;
+    private static final int POP = 0x57;
+    private static final int DUP_X2 = 0x5b;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int DNEG = 0x77;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    /**
+     * Constant pool tags.
+     */
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * Entries of the constant pool.
+     */
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+
+    /**
+     * Indexes of the entries of the constant pool by a key describing the entry.
+     */
+    private final Map<String, Integer> poolIndexes = new HashMap<>();
+
+    /**
+     * Index of the next entry of the constant pool.
+     */
+    private int poolCount = 1;
+
+    private ExpressionCompiler(){
+    }
+
+    /**
+     * Compiles the expression.
+     * @param expression expression to compile.
+     * @return compiled expression, or {@code null} if the expression is too large for a single class.
+     * @throws ReflectiveOperationException if the generated class can't be defined or instantiated.
+     */
+    static CompiledExpression compile(Expression expression) throws ReflectiveOperationException {
+        byte[] bytes = new ExpressionCompiler().generate(expression);
+        if(bytes == null)
+            return null;
+        MethodHandles.Lookup lookup = LOOKUP.defineHiddenClass(bytes, true);
+        try {
+            return (CompiledExpression) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                .invoke();
+        } catch (ReflectiveOperationException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Generates the class file.
+     * @param expression compiled expression.
+     * @return bytes of the class file, or {@code null} if the expression is too large.
+     */
+    private byte[] generate(Expression expression){
+        try {
+            if(expression.getVariables().size() > Short.MAX_VALUE)
+                return null;
+            byte[] code = evaluateCode(expression);
+            if(code.length > MAX_CODE_LENGTH)
+                return null;
+
+            int thisClass = classEntry(CLASS_NAME);
+            int superClass = classEntry("java/lang/Object");
+            int interfaceClass = classEntry(INTERFACE_NAME);
+            int objectConstructor = methodEntry("java/lang/Object", "<init>", "()V");
+            int codeName = utf8Entry("Code");
+            int constructorName = utf8Entry("<init>");
+            int constructorType = utf8Entry("()V");
+            int evaluateName = utf8Entry("evaluate");
+            int evaluateType = utf8Entry("([D)D");
+            if(poolCount > 0xFFFF)
+                return null;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(poolBytes.size() + code.length + 128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(interfaceClass);
+            out.writeShort(0);
+
+            out.writeShort(2);
+            byte[] constructor = {
+                (byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectConstructor >> 8), (byte) objectConstructor,
+                (byte) RETURN
+            };
+            writeMethod(out, constructorName, constructorType, codeName, 1, 1, constructor);
+            writeMethod(out, evaluateName, evaluateType, codeName, 2 * expression.getMaxDepth() + 2, 4, code);
+
+            out.writeShort(0);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates the code of {@link CompiledExpression#evaluate(double[])}. Local variable 1 holds the
+     * values, and locals 2 and 3 a temporary {@code double}.
+     * @param expression compiled expression.
+     * @return bytecode of the method.
+     */
+    private byte[] evaluateCode(Expression expression) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        double[] constants = expression.constants();
+        for(int instruction : expression.code()){
+            int argument = instruction >>> OPCODE_BITS;
+            switch (instruction & ((1 << OPCODE_BITS) - 1)){
+                case CONST:
+                    out.writeByte(LDC2_W);
+                    out.writeShort(doubleEntry(constants[argument]));
+                    break;
+                case VAR:
+                    out.writeByte(ALOAD_1);
+                    pushInt(out, argument);
+                    out.writeByte(DALOAD);
+                    break;
+                case NEG: out.writeByte(DNEG); break;
+                case FUNCTION:
+                    if(MATH_METHODS[argument] != null) {
+                        out.writeByte(INVOKESTATIC);
+                        out.writeShort(methodEntry("java/lang/Math", MATH_METHODS[argument], "(D)D"));
+                    } else {
+                        out.writeByte(GETSTATIC);
+                        out.writeShort(fieldEntry(FUNCTION_NAME, CalcFunction.values()[argument].name(),
+                            "L" + FUNCTION_NAME + ";"));
+                        out.writeByte(DUP_X2);
+                        out.writeByte(POP);
+                        out.writeByte(INVOKEVIRTUAL);
+                        out.writeShort(methodEntry(FUNCTION_NAME, "applyAsDouble", "(D)D"));
+                    }
+                    break;
+                case ADD: out.writeByte(DADD); break;
+                case SUB: out.writeByte(DSUB); break;
+                case MUL: out.writeByte(DMUL); break;
+                case DIV: out.writeByte(DDIV); break;
+                case ROOT:
+                    out.writeByte(DSTORE_2);
+                    out.writeByte(DCONST_1);
+                    out.writeByte(DLOAD_2);
+                    out.writeByte(DDIV);
+                    invokePow(out);
+                    break;
+                case POW: invokePow(out); break;
+                default: throw new IllegalStateException("Invalid instruction " + instruction + "!");
+            }
+        }
+        out.writeByte(DRETURN);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a call of {@link Math#pow(double, double)} on the two topmost values.
+     * @param out code of the method.
+     */
+    private void invokePow(DataOutputStream out) throws IOException {
+        out.writeByte(INVOKESTATIC);
+        out.writeShort(methodEntry("java/lang/Math", "pow", "(DD)D"));
+    }
+
+    /**
+     * Writes an instruction pushing a non-negative {@code int}.
+     * @param out code of the method.
+     * @param value value to push, at most {@link Short#MAX_VALUE}.
+     */
+    private static void pushInt(DataOutputStream out, int value) throws IOException {
+        if(value < 128) {
+            out.writeByte(BIPUSH);
+            out.writeByte(value);
+        } else {
+            out.writeByte(SIPUSH);
+            out.writeShort(value);
+        }
+    }
+
+    /**
+     * Writes a method whose only attribute is its code.
+     */
+    private static void writeMethod(DataOutputStream out, int name, int type, int codeName, int maxStack,
+            int maxLocals, byte[] code) throws IOException {
+        out.writeShort(ACC_PUBLIC);
+        out.writeShort(name);
+        out.writeShort(type);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private int utf8Entry(String value) throws IOException {
+        Integer index = poolIndexes.get("U" + value);
+        if(index != null)
+            return index;
+        pool.writeByte(CONSTANT_UTF8);
+        pool.writeUTF(value);
+        return addEntry("U" + value, 1);
+    }
+
+    private int classEntry(String name) throws IOException {
+        Integer index = poolIndexes.get("C" + name);
+        if(index != null)
+            return index;
+        int nameIndex = utf8Entry(name);
+        pool.writeByte(CONSTANT_CLASS);
+        pool.writeShort(nameIndex);
+        return addEntry("C" + name, 1);
+    }
+
+    private int methodEntry(String owner, String name, String type) throws IOException {
+        return memberEntry(CONSTANT_METHODREF, owner, name, type);
+    }
+
+    private int fieldEntry(String owner, String name, String type) throws IOException {
+        return memberEntry(CONSTANT_FIELDREF, owner, name, type);
+    }
+
+    private int memberEntry(int tag, String owner, String name, String type) throws IOException {
+        String key = "M" + tag + owner + '.' + name + type;
+        Integer index = poolIndexes.get(key);
+        if(index != null)
+            return index;
+        int ownerIndex = classEntry(owner);
+        int nameAndType = nameAndTypeEntry(name, type);
+        pool.writeByte(tag);
+        pool.writeShort(ownerIndex);
+        pool.writeShort(nameAndType);
+        return addEntry(key, 1);
+    }
+
+    private int nameAndTypeEntry(String name, String type) throws IOException {
+        String key = "N" + name + ' ' + type;
+        Integer index = poolIndexes.get(key);
+        if(index != null)
+            return index;
+        int nameIndex = utf8Entry(name);
+        int typeIndex = utf8Entry(type);
+        pool.writeByte(CONSTANT_NAME_AND_TYPE);
+        pool.writeShort(nameIndex);
+        pool.writeShort(typeIndex);
+        return addEntry(key, 1);
+    }
+
+    private int doubleEntry(double value) throws IOException {
+        long bits = Double.doubleToRawLongBits(value);
+        String key = "D" + bits;
+        Integer index = poolIndexes.get(key);
+        if(index != null)
+            return index;
+        pool.writeByte(CONSTANT_DOUBLE);
+        pool.writeLong(bits);
+        return addEntry(key, 2);
+    }
+
+    /**
+     * Records the entry just written to the constant pool.
+     * @param key key describing the entry.
+     * @param size number of pool slots the entry takes.
+     * @return index of the entry.
+     */
+    private int addEntry(String key, int size){
+        int index = poolCount;
+        poolIndexes.put(key, index);
+        poolCount += size;
+        return index;
+    }
+}
@@ -0,0 +1,15 @@
+package hr.fer.zemris.java.gui.calc.expr;
+
+/**
+ * Exception thrown when an {@link Expression} can't be compiled.
+ * @author MatijaPav
+ */
+public class ExpressionException extends RuntimeException{
+    public ExpressionException(){
+        super();
+    }
+
+    public ExpressionException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,338 @@
+package hr.fer.zemris.java.gui.calc.expr;
+
+import hr.fer.zemris.java.gui.calc.CalcFunction;
+
+import java.util.Arrays;
+
+import static hr.fer.zemris.java.gui.calc.expr.Expression.*;
+
+/**
+ * Recursive descent parser which compiles an infix expression directly into {@link Expression} instructions,
+ * folding operations on constants as it goes.
+ * <pre>
+ * expression := term (('+' | '-') term)*
+ * term       := unary (('*' | '/') unary)*
+ * unary      := ('+' | '-') unary | power
+ * power      := primary ('^' unary)?
+ * primary    := number | name | name '(' expression (',' expression)? ')' | '(' expression ')'
+ * </pre>
+ * @author MatijaPav
+ */
+final class ExpressionParser {
+    /**
+     * Parsed text.
+     */
+    private final String source;
+
+    /**
+     * Names of the declared variables.
+     */
+    private final String[] variables;
+
+    /**
+     * Position of the next character.
+     */
+    private int position;
+
+    /**
+     * Emitted instructions.
+     */
+    private int[] code = new int[16];
+
+    /**
+     * Number of emitted instructions.
+     */
+    private int length;
+
+    /**
+     * Constants of the instructions.
+     */
+    private double[] constants = new double[8];
+
+    /**
+     * Number of constants.
+     */
+    private int constantCount;
+
+    /**
+     * Current depth of the stack.
+     */
+    private int depth;
+
+    /**
+     * Largest depth of the stack.
+     */
+    private int maxDepth;
+
+    ExpressionParser(String source, String[] variables){
+        this.source = source;
+        this.variables = variables;
+    }
+
+    /**
+     * Parses the whole text.
+     * @return compiled expression.
+     * @throws ExpressionException if the text is not a valid expression.
+     */
+    Expression parse(){
+        expression();
+        skipWhitespace();
+        if(position < source.length())
+            throw error("Unexpected '" + source.charAt(position) + "'");
+        return new Expression(source, variables, Arrays.copyOf(code, length),
+            Arrays.copyOf(constants, constantCount), maxDepth);
+    }
+
+    private void expression(){
+        term();
+        while(true){
+            if(accept('+')){
+                term();
+                emitBinary(ADD);
+            } else if(accept('-')){
+                term();
+                emitBinary(SUB);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void term(){
+        unary();
+        while(true){
+            if(accept('*')){
+                unary();
+                emitBinary(MUL);
+            } else if(accept('/')){
+                unary();
+                emitBinary(DIV);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void unary(){
+        if(accept('-')){
+            unary();
+            emitUnary(NEG, 0);
+        } else if(accept('+')){
+            unary();
+        } else {
+            power();
+        }
+    }
+
+    private void power(){
+        primary();
+        if(accept('^')){
+            unary();
+            emitBinary(POW);
+        }
+    }
+
+    private void primary(){
+        skipWhitespace();
+        if(position == source.length())
+            throw error("Unexpected end of expression");
+        char c = source.charAt(position);
+        if(accept('(')){
+            expression();
+            expect(')');
+        } else if(c == '.' || (c >= '0' && c <= '9')){
+            number();
+        } else if(Character.isLetter(c)){
+            name();
+        } else {
+            throw error("Unexpected '" + c + "'");
+        }
+    }
+
+    private void number(){
+        int start = position;
+        while(position < source.length() && isDigitOrPoint(source.charAt(position)))
+            position++;
+        if(position < source.length() && (source.charAt(position) == 'e' || source.charAt(position) == 'E')){
+            int exponent = position + 1;
+            if(exponent < source.length() && (source.charAt(exponent) == '+' || source.charAt(exponent) == '-'))
+                exponent++;
+            if(exponent < source.length() && Character.isDigit(source.charAt(exponent))){
+                position = exponent;
+                while(position < source.length() && Character.isDigit(source.charAt(position)))
+                    position++;
+            }
+        }
+        try {
+            emitConstant(Double.parseDouble(source.substring(start, position)));
+        } catch (NumberFormatException e){
+            position = start;
+            throw error("Invalid number");
+        }
+    }
+
+    private void name(){
+        int start = position;
+        while(position < source.length() && Character.isLetterOrDigit(source.charAt(position)))
+            position++;
+        String name = source.substring(start, position);
+
+        int variable = Arrays.asList(variables).indexOf(name);
+        if(variable >= 0){
+            emit(VAR, variable, 1);
+            return;
+        }
+        switch (name){
+            case "pi": emitConstant(Math.PI); return;
+            case "e": emitConstant(Math.E); return;
+            case "pow": binaryFunction(POW); return;
+            case "root": binaryFunction(ROOT); return;
+        }
+        CalcFunction function = function(name);
+        if(function == null){
+            position = start;
+            throw error("Unknown name '" + name + "'");
+        }
+        expect('(');
+        expression();
+        expect(')');
+        emitUnary(FUNCTION, function.ordinal());
+    }
+
+    /**
+     * Parses arguments of a function of two arguments.
+     * @param opcode operation of the function.
+     */
+    private void binaryFunction(int opcode){
+        expect('(');
+        expression();
+        expect(',');
+        expression();
+        expect(')');
+        emitBinary(opcode);
+    }
+
+    /**
+     * Finds the function with the given name.
+     * @param name label of the function or its alias.
+     * @return function, or {@code null} if there is no such function.
+     */
+    private static CalcFunction function(String name){
+        switch (name){
+            case "exp10": return CalcFunction.TEN_POW;
+            case "exp": return CalcFunction.E_POW;
+            case "recip": return CalcFunction.RECIPROCAL;
+            default: return CalcFunction.forLabel(name);
+        }
+    }
+
+    /**
+     * Emits the constant.
+     * @param value value of the constant.
+     */
+    private void emitConstant(double value){
+        if(constantCount == constants.length)
+            constants = Arrays.copyOf(constants, 2 * constantCount);
+        constants[constantCount] = value;
+        emit(CONST, constantCount++, 1);
+    }
+
+    /**
+     * Emits the unary operation, or calculates it if its operand is a constant.
+     * @param opcode opcode of the operation.
+     * @param argument argument of the operation.
+     */
+    private void emitUnary(int opcode, int argument){
+        if(isConstant(length - 1)){
+            int index = code[length - 1] >>> OPCODE_BITS;
+            double operand = constants[index];
+            constants[index] = opcode == NEG ? -operand : CalcFunction.values()[argument].applyAsDouble(operand);
+            return;
+        }
+        emit(opcode, argument, 0);
+    }
+
+    /**
+     * Emits the binary operation, or calculates it if both of its operands are constants. An operand
+     * ending with an instruction pushing a constant is that single instruction, so both operands are
+     * constants if the last two instructions push constants.
+     * @param opcode opcode of the operation.
+     */
+    private void emitBinary(int opcode){
+        if(isConstant(length - 1) && isConstant(length - 2)){
+            int rightIndex = code[length - 1] >>> OPCODE_BITS;
+            double right = constants[rightIndex];
+            if(rightIndex == constantCount - 1)
+                constantCount--;
+            length--;
+            depth--;
+            int index = code[length - 1] >>> OPCODE_BITS;
+            constants[index] = Expression.apply(opcode, constants[index], right);
+            return;
+        }
+        emit(opcode, 0, -1);
+    }
+
+    /**
+     * @param index index of the instruction.
+     * @return {@code true} if the instruction exists and pushes a constant.
+     */
+    private boolean isConstant(int index){
+        return index >= 0 && (code[index] & ((1 << OPCODE_BITS) - 1)) == CONST;
+    }
+
+    /**
+     * Appends the instruction.
+     * @param opcode opcode.
+     * @param argument argument.
+     * @param effect change of the stack depth.
+     */
+    private void emit(int opcode, int argument, int effect){
+        if(length == code.length)
+            code = Arrays.copyOf(code, 2 * length);
+        code[length++] = opcode | argument << OPCODE_BITS;
+        depth += effect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Skips whitespace and consumes the character if it is next.
+     * @param c expected character.
+     * @return {@code true} if the character was consumed.
+     */
+    private boolean accept(char c){
+        skipWhitespace();
+        if(position < source.length() && source.charAt(position) == c){
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumes the character which must be next.
+     * @param c expected character.
+     * @throws ExpressionException if the next character is different.
+     */
+    private void expect(char c){
+        if(!accept(c))
+            throw error("Expected '" + c + "'");
+    }
+
+    private void skipWhitespace(){
+        while(position < source.length() && Character.isWhitespace(source.charAt(position)))
+            position++;
+    }
+
+    private static boolean isDigitOrPoint(char c){
+        return c == '.' || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * @param message description of the error.
+     * @return exception describing the error at the current position.
+     */
+    private ExpressionException error(String message){
+        return new ExpressionException(message + " at position " + position + " of \"" + source + "\"!");
+    }
+}
@@ -50,9 +50,10 @@ public class BarChartDemo extends JFrame {
 
     /**
      * Creates a {@link BarChart} from input text.
+     * @param path path of the file describing the chart.
      * @return {@link BarChart}
      */
-    private static BarChart createChart(Path path){
+    static BarChart createChart(Path path){
         List<String> list;
         try{
             list = Files.readAllLines(path);
@@ -6,16 +6,18 @@ import java.awt.Dimension;
 import java.awt.Insets;
 import java.awt.LayoutManager;
 import java.awt.LayoutManager2;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.OptionalInt;
-import java.util.TreeMap;
-import java.util.function.Function;
 
 /**
- * CalcLayout class represents a Layout manager.
+ * CalcLayout class represents a Layout manager which places components in a grid of equally
+ * sized cells. Components may span several rows and columns, as declared by their
+ * {@link RCPosition}.
+ * <p>
+ * Layout created without grid dimensions is the calculator layout of {@link #ROWS} rows and
+ * {@link #COLUMNS} columns, in which the component at (1,1) spans the first five columns.
  *
  * @author MatijaPav
  */
@@ -23,21 +25,103 @@ import java.util.function.Function;
 public class CalcLayout implements LayoutManager2 {
 
     /**
-     * Number of rows it {@code CalcLayout}
+     * Number of rows in the calculator {@code CalcLayout}
      */
     public static final int ROWS = 5;
 
     /**
-     * Number of columns in {@code CalcLayout}
+     * Number of columns in the calculator {@code CalcLayout}
      */
     public static final int COLUMNS = 7;
 
+    /**
+     * Number of columns spanned by the component at (1,1) of the calculator layout.
+     */
+    private static final int DISPLAY_SPAN = 5;
+
+    /**
+     * Number of rows in the layout.
+     */
+    private final int rows;
+
+    /**
+     * Number of columns in the layout.
+     */
+    private final int columns;
+
+    /**
+     * Indicates if this is the calculator layout.
+     */
+    private final boolean calculator;
+
     /**
      * Size of the gap between two components in a layout.
      */
     private int componentGap;
 
-    private Map<RCPosition, Component> components;
+    /**
+     * Components by cell, cell of row {@code r} and column {@code c} having
+     * index {@code (r - 1) * columns + c - 1}. Component is stored in every cell it spans.
+     */
+    private final Component[] grid;
+
+    /**
+     * Components in the layout, first {@link #size} elements are used.
+     */
+    private Component[] components = new Component[8];
+
+    /**
+     * Placements of the {@link #components}, four elements per component:
+     * row, column, row span and column span.
+     */
+    private int[] placements = new int[4 * 8];
+
+    /**
+     * Number of components in the layout.
+     */
+    private int size;
+
+    /**
+     * Indexes of the components in {@link #components}, by component identity.
+     */
+    private final Map<Component, Integer> indexes;
+
+    /**
+     * Cached preferred size of a single cell, {@code null} when invalid.
+     */
+    private Dimension preferredCell;
+
+    /**
+     * Cached minimum size of a single cell, {@code null} when invalid.
+     */
+    private Dimension minimumCell;
+
+    /**
+     * Cached maximum size of a single cell, {@code null} when invalid.
+     */
+    private Dimension maximumCell;
+
+    /**
+     * Cached x coordinates of the column edges; column {@code c} spans from
+     * {@code columnEdges[c - 1]} to {@code columnEdges[c] - componentGap}.
+     */
+    private final int[] columnEdges;
+
+    /**
+     * Cached y coordinates of the row edges, laid out like {@link #columnEdges}.
+     */
+    private final int[] rowEdges;
+
+    /**
+     * Bounds of the container for which the edges were computed; edges are valid while
+     * {@link #gridValid} is set.
+     */
+    private int gridX, gridY, gridWidth, gridHeight;
+
+    /**
+     * Indicates if {@link #columnEdges} and {@link #rowEdges} are valid.
+     */
+    private boolean gridValid;
 
     /**
      * Creates a {@code CalcLayout} with no gaps between two components.
@@ -47,14 +131,57 @@ public class CalcLayout implements LayoutManager2 {
     }
 
     /**
-     * Creates a {@code CalcLayout}
+     * Creates a calculator {@code CalcLayout}
      * @param componentGap size of the gap between two components.
      */
     public CalcLayout(int componentGap){
+        this(ROWS, COLUMNS, componentGap, true);
+    }
+
+    /**
+     * Creates a {@code CalcLayout} with a grid of given dimensions.
+     * @param rows number of rows.
+     * @param columns number of columns.
+     * @param componentGap size of the gap between two components.
+     */
+    public CalcLayout(int rows, int columns, int componentGap){
+        this(rows, columns, componentGap, false);
+    }
+
+    /**
+     * Creates a {@code CalcLayout}
+     * @param rows number of rows.
+     * @param columns number of columns.
+     * @param componentGap size of the gap between two components.
+     * @param calculator indicates if this is the calculator layout.
+     */
+    private CalcLayout(int rows, int columns, int componentGap, boolean calculator){
         if(componentGap < 0)
             throw new CalcLayoutException("Component gap can't be negative!");
+        if(rows < 1 || columns < 1 || (long) rows * columns > Integer.MAX_VALUE)
+            throw new CalcLayoutException("Invalid grid dimensions " + rows + "x" + columns + "!");
+        this.rows = rows;
+        this.columns = columns;
+        this.calculator = calculator;
         this.componentGap = componentGap;
-        this.components = new HashMap<>();
+        this.grid = new Component[rows * columns];
+        this.indexes = new IdentityHashMap<>();
+        this.columnEdges = new int[columns + 1];
+        this.rowEdges = new int[rows + 1];
+    }
+
+    /**
+     * @return Number of rows in the layout.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Number of columns in the layout.
+     */
+    public int getColumns() {
+        return columns;
     }
     /**
      * Adds the specified component to the layout, using the specified
@@ -77,13 +204,35 @@ public class CalcLayout implements LayoutManager2 {
         }
         int r = pos.getRow();
         int s = pos.getColumn();
-        if(components.containsKey(pos))
-            throw new CalcLayoutException("Component with these constraints already exists!");
-        if((r < 1 || r > ROWS) || (s < 1 || s > COLUMNS) || (r == 1 && s > 1 && s < 6))
+        int rowSpan = pos.getRowSpan();
+        int columnSpan = pos.getColumnSpan();
+        if(calculator && r == 1 && s > 1 && s <= DISPLAY_SPAN)
             throw new CalcLayoutException("Can't create component with these constraints!");
+        if(calculator && r == 1 && s == 1 && rowSpan == 1 && columnSpan == 1)
+            columnSpan = DISPLAY_SPAN;
+        if(r < 1 || s < 1 || rowSpan > rows - r + 1 || columnSpan > columns - s + 1)
+            throw new CalcLayoutException("Can't create component with these constraints!");
+        for(int i = r - 1; i < r - 1 + rowSpan; i++){
+            for(int j = s - 1; j < s - 1 + columnSpan; j++){
+                if(grid[i * columns + j] != null)
+                    throw new CalcLayoutException("Component with these constraints already exists!");
+            }
+        }
+        if(indexes.containsKey(comp))
+            throw new CalcLayoutException("Component is already in the layout!");
 
-        this.components.put(pos, comp);
-
+        fill(r, s, rowSpan, columnSpan, comp);
+        if(size == components.length){
+            this.components = Arrays.copyOf(components, 2 * size);
+            this.placements = Arrays.copyOf(placements, 8 * size);
+        }
+        this.components[size] = comp;
+        this.placements[4 * size] = r;
+        this.placements[4 * size + 1] = s;
+        this.placements[4 * size + 2] = rowSpan;
+        this.placements[4 * size + 3] = columnSpan;
+        this.indexes.put(comp, size++);
+        invalidate();
     }
 
     /**
@@ -99,7 +248,8 @@ public class CalcLayout implements LayoutManager2 {
      */
     @Override
     public Dimension maximumLayoutSize(Container target) {
-        return layoutSize(target, Component::getMaximumSize);
+        computeCellSizes();
+        return layoutSize(target, maximumCell);
     }
 
     /**
@@ -141,7 +291,9 @@ public class CalcLayout implements LayoutManager2 {
      * @param target the target container
      */
     @Override
-    public void invalidateLayout(Container target) {}
+    public void invalidateLayout(Container target) {
+        invalidate();
+    }
 
     /**
      * If the layout manager uses a per-component string,
@@ -165,9 +317,20 @@ public class CalcLayout implements LayoutManager2 {
     @Override
     public void removeLayoutComponent(Component comp) {
         Objects.requireNonNull(comp, "Can't remove null!");
-        if(!this.components.containsValue(comp))
+        Integer index = this.indexes.remove(comp);
+        if(index == null)
             throw new CalcLayoutException("Layout doesn't contain given component!");
-        this.components.values().remove(comp);
+        int i = index;
+        fill(placements[4 * i], placements[4 * i + 1], placements[4 * i + 2], placements[4 * i + 3], null);
+
+        int last = --size;
+        if(i != last){
+            this.components[i] = components[last];
+            System.arraycopy(placements, 4 * last, placements, 4 * i, 4);
+            this.indexes.put(components[i], i);
+        }
+        this.components[last] = null;
+        invalidate();
     }
 
     /**
@@ -182,8 +345,8 @@ public class CalcLayout implements LayoutManager2 {
      */
     @Override
     public Dimension preferredLayoutSize(Container parent) {
-        return layoutSize(parent, Component::getPreferredSize);
-
+        computeCellSizes();
+        return layoutSize(parent, preferredCell);
     }
 
     /**
@@ -198,66 +361,145 @@ public class CalcLayout implements LayoutManager2 {
      */
     @Override
     public Dimension minimumLayoutSize(Container parent) {
-        return layoutSize(parent, Component::getMinimumSize);
+        computeCellSizes();
+        return layoutSize(parent, minimumCell);
     }
 
     /**
-     * Lays out the specified container.
+     * Lays out the specified container. Available space is divided between rows and
+     * columns as evenly as possible, so their sizes differ by at most one pixel.
      *
      * @param parent the container to be laid out
      */
     @Override
     public void layoutContainer(Container parent) {
         Objects.requireNonNull(parent, "Parent container can't be null!");
-        int height = components
-            .values()
-            .stream()
-            .map(c -> c.getMaximumSize().height)
-            .max(Integer::compareTo)
-            .orElseThrow(CalcLayoutException::new);
-        int width = components
-            .values()
-            .stream()
-            .map(c -> c.getMaximumSize().width)
-            .max(Integer::compareTo)
-            .orElseThrow(CalcLayoutException::new);
-        width *= parent.getWidth() / preferredLayoutSize(parent).getWidth();
-        height *= parent.getHeight() / preferredLayoutSize(parent).getHeight();
-        width += 2;
-        height++;
-
-        for (Map.Entry<RCPosition, Component> entry : components.entrySet()) {
-            RCPosition position = entry.getKey();
-            Component comp = entry.getValue();
-
-            if (position.getColumn() == 1 && position.getRow() == 1) {
-                comp.setBounds(0, 0, 5 * width + 4 * componentGap, height);
-                continue;
-            }
+        computeGrid(parent);
 
-            comp.setBounds((position.getColumn() - 1) * (width + componentGap), (position.getRow() - 1) *
-                (height + componentGap), width, height);
+        for (int i = 0; i < size; i++) {
+            int row = placements[4 * i];
+            int column = placements[4 * i + 1];
+            int x = columnEdges[column - 1];
+            int y = rowEdges[row - 1];
+            components[i].setBounds(x, y,
+                columnEdges[column - 1 + placements[4 * i + 3]] - componentGap - x,
+                rowEdges[row - 1 + placements[4 * i + 2]] - componentGap - y);
         }
     }
 
-    public Dimension layoutSize(Container parent, Function<Component, Dimension> function){
-        int height;
-        int width;
+    /**
+     * Stores the component into every cell of the given area.
+     * @param row index of the top row.
+     * @param column index of the leftmost column.
+     * @param rowSpan number of rows.
+     * @param columnSpan number of columns.
+     * @param comp component to store, {@code null} to clear the area.
+     */
+    private void fill(int row, int column, int rowSpan, int columnSpan, Component comp){
+        for(int i = row - 1; i < row - 1 + rowSpan; i++){
+            int start = i * columns + column - 1;
+            Arrays.fill(grid, start, start + columnSpan, comp);
+        }
+    }
 
-        height = this.components.values().stream().map(function).mapToInt(comp -> comp.height).max().orElseThrow();
-        width = this.components.entrySet().stream().mapToInt(entry ->{
-            if(entry.getKey().getColumn() == 1 && entry.getKey().getRow() == 1)
-                return (function.apply(entry.getValue()).width - (ROWS - 1) * componentGap) / ROWS;
-            return function.apply(entry.getValue()).width;
-        }).max().orElseThrow();
+    /**
+     * Discards cached sizes and geometry.
+     */
+    private void invalidate(){
+        this.preferredCell = null;
+        this.minimumCell = null;
+        this.maximumCell = null;
+        this.gridValid = false;
+    }
+
+    /**
+     * Computes preferred, minimum and maximum cell sizes in a single pass over the components,
+     * unless they are already cached. Only the share of a single cell is taken into account for
+     * the components spanning several cells.
+     */
+    private void computeCellSizes(){
+        if(preferredCell != null)
+            return;
+        Dimension preferred = new Dimension();
+        Dimension minimum = new Dimension();
+        Dimension maximum = new Dimension();
+
+        for (int i = 0; i < size; i++) {
+            Component comp = components[i];
+            int rowSpan = placements[4 * i + 2];
+            int columnSpan = placements[4 * i + 3];
+            include(preferred, comp.getPreferredSize(), rowSpan, columnSpan);
+            include(minimum, comp.getMinimumSize(), rowSpan, columnSpan);
+            include(maximum, comp.getMaximumSize(), rowSpan, columnSpan);
+        }
+
+        this.preferredCell = preferred;
+        this.minimumCell = minimum;
+        this.maximumCell = maximum;
+    }
+
+    /**
+     * Grows the cell size so that it fits the component size.
+     * @param cell cell size.
+     * @param size size of the component, may be {@code null}.
+     * @param rowSpan number of rows the component spans.
+     * @param columnSpan number of columns the component spans.
+     */
+    private void include(Dimension cell, Dimension size, int rowSpan, int columnSpan){
+        if(size == null)
+            return;
+        cell.width = Math.max(cell.width, (size.width - (columnSpan - 1) * componentGap) / columnSpan);
+        cell.height = Math.max(cell.height, (size.height - (rowSpan - 1) * componentGap) / rowSpan);
+    }
 
+    /**
+     * Computes edges of rows and columns for the current bounds of the container,
+     * unless they are already cached.
+     * @param parent the container to be laid out
+     */
+    private void computeGrid(Container parent){
         Insets insets = parent.getInsets();
+        int x = insets.left;
+        int y = insets.top;
+        int width = parent.getWidth() - insets.left - insets.right;
+        int height = parent.getHeight() - insets.top - insets.bottom;
+        if(gridValid && x == gridX && y == gridY && width == gridWidth && height == gridHeight)
+            return;
 
-        height = height * ROWS + componentGap * (ROWS - 1) + insets.top + insets.bottom;
-        width = width * COLUMNS + componentGap * (COLUMNS - 1) + insets.left + insets.right;
+        computeEdges(columnEdges, x, width, columns);
+        computeEdges(rowEdges, y, height, rows);
+        this.gridX = x;
+        this.gridY = y;
+        this.gridWidth = width;
+        this.gridHeight = height;
+        this.gridValid = true;
+    }
 
-        return new Dimension(width, height);
+    /**
+     * Divides the length between cells, spreading the remainder evenly.
+     * Edge {@code i} is the start of cell {@code i + 1}, gap included.
+     * @param edges array which receives {@code cells + 1} edges.
+     * @param start coordinate of the first edge.
+     * @param length available length.
+     * @param cells number of cells.
+     */
+    private void computeEdges(int[] edges, int start, int length, int cells){
+        int available = Math.max(0, length - (cells - 1) * componentGap);
+        for(int i = 0; i <= cells; i++)
+            edges[i] = (int) (start + (long) i * componentGap + (long) i * available / cells);
+    }
 
+    /**
+     * Calculates the size of the container whose cells have the given size.
+     * @param parent the container to be laid out
+     * @param cell size of a single cell
+     * @return size of the container
+     */
+    private Dimension layoutSize(Container parent, Dimension cell){
+        Insets insets = parent.getInsets();
+        long width = (long) cell.width * columns + (long) componentGap * (columns - 1) + insets.left + insets.right;
+        long height = (long) cell.height * rows + (long) componentGap * (rows - 1) + insets.top + insets.bottom;
+        return new Dimension((int) Math.min(width, Integer.MAX_VALUE), (int) Math.min(height, Integer.MAX_VALUE));
     }
 
 }
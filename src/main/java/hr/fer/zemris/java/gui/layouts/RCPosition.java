@@ -4,9 +4,25 @@ import java.util.Objects;
 
 /**
  * Class {@code RCPosition} represents constraints on the layout created by {@code CalcLayout}.
+ * Position names the top left cell of the component, which may span several rows and columns.
  * @author MatijaPav
  */
 public class RCPosition {
+    /**
+     * Number of rows and columns of the grid whose single cell positions are cached.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * Cached single cell positions, position (r, c) having index {@code r * CACHE_SIZE + c}.
+     */
+    private static final RCPosition[] CACHE = new RCPosition[CACHE_SIZE * CACHE_SIZE];
+
+    static {
+        for(int i = 0; i < CACHE.length; i++)
+            CACHE[i] = new RCPosition(i / CACHE_SIZE, i % CACHE_SIZE);
+    }
+
     /**
      * Row index.
      */
@@ -17,11 +33,74 @@ public class RCPosition {
      */
     private final int column;
 
+    /**
+     * Number of rows the component spans.
+     */
+    private final int rowSpan;
+
+    /**
+     * Number of columns the component spans.
+     */
+    private final int columnSpan;
+
+    /**
+     * Precomputed hash code.
+     */
+    private final int hash;
+
+    /**
+     * Creates a position of a component occupying a single cell.
+     * @param row row index.
+     * @param column column index.
+     */
     public RCPosition(int row, int column){
+        this(row, column, 1, 1);
+    }
+
+    /**
+     * Creates a position of a component spanning several cells.
+     * @param row index of the top row.
+     * @param column index of the leftmost column.
+     * @param rowSpan number of rows the component spans.
+     * @param columnSpan number of columns the component spans.
+     */
+    public RCPosition(int row, int column, int rowSpan, int columnSpan){
         if(row < 0 || column < 0)
             throw new CalcLayoutException("Indexes of rows and columns must be non negative!");
+        if(rowSpan < 1 || columnSpan < 1)
+            throw new CalcLayoutException("Component must span at least one row and column!");
         this.row = row;
         this.column = column;
+        this.rowSpan = rowSpan;
+        this.columnSpan = columnSpan;
+        this.hash = (row << 16 | column & 0xFFFF) ^ (rowSpan - 1) << 24 ^ (columnSpan - 1) << 8;
+    }
+
+    /**
+     * Returns the position of a component occupying a single cell. Positions in small grids
+     * are shared instances.
+     * @param row row index.
+     * @param column column index.
+     * @return position.
+     */
+    public static RCPosition of(int row, int column){
+        if(row >= 0 && row < CACHE_SIZE && column >= 0 && column < CACHE_SIZE)
+            return CACHE[row * CACHE_SIZE + column];
+        return new RCPosition(row, column);
+    }
+
+    /**
+     * Returns the position of a component spanning several cells.
+     * @param row index of the top row.
+     * @param column index of the leftmost column.
+     * @param rowSpan number of rows the component spans.
+     * @param columnSpan number of columns the component spans.
+     * @return position.
+     */
+    public static RCPosition of(int row, int column, int rowSpan, int columnSpan){
+        if(rowSpan == 1 && columnSpan == 1)
+            return of(row, column);
+        return new RCPosition(row, column, rowSpan, columnSpan);
     }
 
     /**
@@ -38,17 +117,62 @@ public class RCPosition {
         return row;
     }
 
+    /**
+     * @return Number of rows the component spans.
+     */
+    public int getRowSpan() {
+        return rowSpan;
+    }
+
+    /**
+     * @return Number of columns the component spans.
+     */
+    public int getColumnSpan() {
+        return columnSpan;
+    }
+
+    /**
+     * Parses a position from text of form {@code "row, column"} or
+     * {@code "row, column, rowSpan, columnSpan"}, without allocating intermediate strings.
+     * @param text text to parse.
+     * @return parsed position.
+     */
     public static RCPosition parse(String text){
         Objects.requireNonNull(text, "Can't parse RCPosition from null!");
 
-        String[] splits = text.split(",");
-        try {
-            int rows = Integer.parseInt(splits[0]);
-            int columns = Integer.parseInt(splits[1].trim());
-            return new RCPosition(rows, columns);
-        } catch (NumberFormatException e){
-            throw new CalcLayoutException(e.getMessage());
+        int length = text.length();
+        int row = 0, column = 0, rowSpan = 1, columnSpan = 1;
+        int numbers = 0;
+        int i = 0;
+        while(true){
+            while(i < length && Character.isWhitespace(text.charAt(i)))
+                i++;
+            int start = i;
+            int value = 0;
+            while(i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9'){
+                int digit = text.charAt(i++) - '0';
+                if(value > (Integer.MAX_VALUE - digit) / 10)
+                    throw new CalcLayoutException("Number in " + text + " is too large!");
+                value = 10 * value + digit;
+            }
+            if(i == start)
+                throw new CalcLayoutException("Can't parse RCPosition from " + text + "!");
+            switch(numbers++){
+                case 0: row = value; break;
+                case 1: column = value; break;
+                case 2: rowSpan = value; break;
+                default: columnSpan = value; break;
+            }
+            while(i < length && Character.isWhitespace(text.charAt(i)))
+                i++;
+            if(i == length || numbers == 4)
+                break;
+            if(text.charAt(i++) != ',')
+                throw new CalcLayoutException("Can't parse RCPosition from " + text + "!");
         }
+        if(i != length || (numbers != 2 && numbers != 4))
+            throw new CalcLayoutException("Can't parse RCPosition from " + text + "!");
+        return of(row, column, rowSpan, columnSpan);
     }
 
     @Override
@@ -60,11 +184,12 @@ public class RCPosition {
             return false;
         }
         RCPosition that = (RCPosition) o;
-        return row == that.row && column == that.column;
+        return row == that.row && column == that.column
+            && rowSpan == that.rowSpan && columnSpan == that.columnSpan;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, column);
+        return hash;
     }
 }
@@ -3,10 +3,17 @@ package hr.fer.zemris.java.gui.prim;
 import java.awt.BorderLayout;
 import java.awt.Container;
 import java.awt.GridLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JList;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
@@ -16,28 +23,104 @@ import javax.swing.WindowConstants;
  * {@code PrimDemo} generates and displays prime numbers.
  */
 public class PrimDemo extends JFrame {
+    /**
+     * Number of primes added by the batch button.
+     */
+    private static final int BATCH_SIZE = 100_000;
+
+    /**
+     * File in which generated primes are kept between runs.
+     */
+    private static final Path CACHE_FILE = Paths.get(System.getProperty("user.home"), ".primdemo", "primes.bin");
+
+    /**
+     * Source of the displayed primes, {@code null} until {@link #CACHE_FILE} is loaded.
+     */
+    private PrimeSieve sieve;
+
+    /**
+     * Number of primes loaded from {@link #CACHE_FILE}.
+     */
+    private int cachedPrimes;
+
+    /**
+     * Lists displaying the primes.
+     */
+    private final JList<Integer> first = new JList<>();
+    private final JList<Integer> second = new JList<>();
+
+    /**
+     * Buttons adding primes, enabled once the primes are loaded.
+     */
+    private final JButton next = new JButton("Next");
+    private final JButton nextBatch = new JButton("Next " + BATCH_SIZE);
 
     public PrimDemo(){
         super();
         setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
         setTitle("PrimDemo");
         initGUI();
+        // reading and verifying the cache takes time proportional to its size, so it is kept off the EDT
+        // if loading fails unexpectedly, primes are generated from the beginning
+        CompletableFuture.supplyAsync(() -> PrimeCache.load(CACHE_FILE))
+            .exceptionally(e -> new PrimeSieve())
+            .thenAccept(loaded -> SwingUtilities.invokeLater(() -> primesLoaded(loaded)));
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveCache();
+            }
+        });
+    }
+
+    /**
+     * Displays the primes of the loaded sieve and enables the buttons.
+     * @param loaded sieve continuing after the primes stored in {@link #CACHE_FILE}.
+     */
+    private void primesLoaded(PrimeSieve loaded){
+        this.sieve = loaded;
+        this.cachedPrimes = loaded.size();
+        PrimListModel model = new PrimListModel(loaded);
+        first.setModel(model);
+        second.setModel(model);
+        next.addActionListener(e -> model.next());
+        nextBatch.addActionListener(e -> model.nextBatchAsync(BATCH_SIZE));
+        next.setEnabled(true);
+        nextBatch.setEnabled(true);
+    }
+
+    /**
+     * Stores the primes in {@link #CACHE_FILE} if more of them were generated than loaded.
+     * It is called while the window is closing, so a failure can still be shown to the user.
+     */
+    private void saveCache(){
+        if(sieve == null || sieve.size() <= cachedPrimes)
+            return;
+        try{
+            PrimeCache.save(CACHE_FILE, sieve);
+        } catch (IOException e){
+            JOptionPane.showMessageDialog(this, "Can't save primes to " + CACHE_FILE + ": " + e.getMessage(),
+                "PrimDemo", JOptionPane.WARNING_MESSAGE);
+        }
     }
 
     private void initGUI(){
         Container cp = getContentPane();
         cp.setLayout(new BorderLayout());
 
-        PrimListModel model = new PrimListModel();
         JPanel panel = new JPanel(new GridLayout(0, 2));
-        panel.add(new JScrollPane(new JList<>(model)));
-        panel.add(new JScrollPane(new JList<>(model)));
+        panel.add(new JScrollPane(first));
+        panel.add(new JScrollPane(second));
 
-        JButton next = new JButton("Next");
-        next.addActionListener(e -> model.next());
+        next.setEnabled(false);
+        nextBatch.setEnabled(false);
+
+        JPanel buttons = new JPanel(new GridLayout(1, 0));
+        buttons.add(next);
+        buttons.add(nextBatch);
 
         cp.add(panel, BorderLayout.CENTER);
-        cp.add(next, BorderLayout.SOUTH);
+        cp.add(buttons, BorderLayout.SOUTH);
 
     }
 
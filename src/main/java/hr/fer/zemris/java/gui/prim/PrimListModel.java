@@ -2,29 +2,83 @@ package hr.fer.zemris.java.gui.prim;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 
 /**
  * {@code PrimListModel} is an implementation of{@link ListModel}.
+ * Like other Swing models it should be modified only on the event dispatch thread,
+ * while {@link #nextBatchAsync(int)} computes primes on a background thread.
  * @author MatijaPav
  */
 public class PrimListModel implements ListModel<Integer> {
     /**
-     * List of primes.
+     * Maximum number of primes added by a single event of {@link #nextBatchAsync(int)}.
      */
-    private List<Integer> primes;
+    private static final int ASYNC_BATCH = 1 << 16;
+
+    /**
+     * Number of boxed elements kept for {@link #getElementAt(int)}, enough for all visible rows.
+     */
+    private static final int BOX_CACHE_SIZE = 256;
+
+    /**
+     * Background thread which computes primes for {@link #nextBatchAsync(int)}.
+     */
+    private static final ExecutorService PRODUCER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "prime-producer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Generator of primes shown by the model.
+     */
+    private final PrimeSieve sieve;
+
+    /**
+     * Number of elements in the list, first element being {@code 1}.
+     */
+    private volatile int size;
+
+    /**
+     * Recently boxed elements, indexed by the element index modulo {@link #BOX_CACHE_SIZE}.
+     */
+    private final Integer[] boxes;
+
+    /**
+     * Element indexes of {@link #boxes}.
+     */
+    private final int[] boxIndexes;
 
     /**
      * List of listners.
      */
     private List<ListDataListener> listeners;
 
+    /**
+     * Creates a {@code PrimListModel} with its own {@link PrimeSieve}.
+     */
     public PrimListModel(){
-        primes = new ArrayList<>();
+        this(new PrimeSieve());
+    }
+
+    /**
+     * Creates a {@code PrimListModel} which shows primes of the given sieve.
+     * @param sieve source of the primes.
+     */
+    public PrimListModel(PrimeSieve sieve){
+        this.sieve = Objects.requireNonNull(sieve, "Sieve can't be null!");
         listeners = new ArrayList<>();
-        primes.add(1);
+        boxes = new Integer[BOX_CACHE_SIZE];
+        boxIndexes = new int[BOX_CACHE_SIZE];
+        size = 1;
     }
 
     /**
@@ -33,17 +87,37 @@ public class PrimListModel implements ListModel<Integer> {
      */
     @Override
     public int getSize() {
-        return primes.size();
+        return size;
     }
 
     /**
      * Returns the value at the specified index.
+     * Boxed values of recently requested rows are reused.
      * @param index the requested index
      * @return the value at <code>index</code>
      */
     @Override
     public Integer getElementAt(int index) {
-        return primes.get(index);
+        int slot = index & (BOX_CACHE_SIZE - 1);
+        Integer box = boxes[slot];
+        if(box == null || boxIndexes[slot] != index){
+            box = getIntAt(index);
+            boxes[slot] = box;
+            boxIndexes[slot] = index;
+        }
+        return box;
+    }
+
+    /**
+     * Returns the value at the specified index without boxing it.
+     * @param index the requested index
+     * @return the value at <code>index</code>
+     * @throws IndexOutOfBoundsException if index is out of bounds
+     */
+    public int getIntAt(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        return index == 0 ? 1 : sieve.get(index - 1);
     }
 
     /**
@@ -66,30 +140,109 @@ public class PrimListModel implements ListModel<Integer> {
         listeners.remove(l);
     }
 
+    /**
+     * Adds the next prime to the end of the list.
+     */
     public void next(){
-        int nextPrime = this.primes.get(getSize() - 1) + 1;
-        while(true){
-            if(isPrime(nextPrime)){
-                primes.add(nextPrime);
-                break;
-            }
-            nextPrime++;
-        }
-        ListDataEvent event = new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, getSize() - 1, getSize() - 1);
+        nextBatch(1);
+    }
+
+    /**
+     * Adds the next {@code n} primes to the end of the list, notifying listeners once.
+     * @param n number of added primes.
+     * @throws IllegalArgumentException if {@code n} is negative or the list would have more than
+     * {@link Integer#MAX_VALUE} elements.
+     */
+    public void nextBatch(int n){
+        checkBatch(n);
+        if(n == 0)
+            return;
+        sieve.ensureCount(size - 1 + n);
+        int first = size;
+        size += n;
+        ListDataEvent event = new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, first, size - 1);
         listeners.forEach(l -> l.intervalAdded(event));
     }
 
     /**
-     * Checks if given number is a prime number.
-     * @param p checked number.
-     * @return {@code true} if number is prime, {@code false} otherwise.
+     * Checks the number of primes added to the list.
+     * @param n number of added primes.
+     * @throws IllegalArgumentException if {@code n} is negative or the list would have more than
+     * {@link Integer#MAX_VALUE} elements.
      */
-    private boolean isPrime(int p){
-        for(int i = 2; i <= p / 2; i++){
-            if(p % i == 0)
-                return false;
-        }
-        return true;
+    private void checkBatch(int n){
+        if(n < 0)
+            throw new IllegalArgumentException("Number of added primes can't be negative!");
+        if(n > Integer.MAX_VALUE - size)
+            throw new IllegalArgumentException("List can't have more than " + Integer.MAX_VALUE + " primes!");
+    }
+
+    /**
+     * Computes the next {@code n} primes on a background thread and adds them to
+     * the list on the event dispatch thread, in batches with one event per batch.
+     * @param n number of added primes.
+     * @return future completed once all primes are added.
+     * @throws IllegalArgumentException if {@code n} is negative or the list would have more than
+     * {@link Integer#MAX_VALUE} elements.
+     */
+    public CompletableFuture<Void> nextBatchAsync(int n){
+        return nextBatchAsync(n, PRODUCER);
+    }
+
+    /**
+     * Computes the next {@code n} primes using the given executor and adds them to
+     * the list on the event dispatch thread, in batches with one event per batch.
+     * @param n number of added primes.
+     * @param executor executor which computes the primes.
+     * @return future completed once all primes are added.
+     * @throws IllegalArgumentException if {@code n} is negative or the list would have more than
+     * {@link Integer#MAX_VALUE} elements.
+     */
+    public CompletableFuture<Void> nextBatchAsync(int n, Executor executor){
+        checkBatch(n);
+        if(n == 0)
+            return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        executor.execute(() -> {
+            try{
+                int expected = size;
+                for(int remaining = n; remaining > 0; ){
+                    int batch = Math.min(remaining, ASYNC_BATCH);
+                    expected += batch;
+                    sieve.ensureCount(expected - 1);
+                    remaining -= batch;
+                    boolean last = remaining == 0;
+                    SwingUtilities.invokeLater(() -> {
+                        try{
+                            nextBatch(batch);
+                            if(last)
+                                done.complete(null);
+                        } catch (RuntimeException e){
+                            done.completeExceptionally(e);
+                        }
+                    });
+                }
+            } catch (RuntimeException e){
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Extends the list until it contains the smallest prime not smaller than {@code value}.
+     * @param value lower bound.
+     * @return index of the smallest prime not smaller than {@code value}.
+     * @throws IllegalArgumentException if there is no such prime representable as {@code int}.
+     */
+    public int jumpTo(int value){
+        long prime = Primality.nextPrime(value);
+        if(prime > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("There is no prime larger than " + value + " representable as int!");
+        int index = sieve.indexOf((int) prime) + 1;
+        if(index >= size)
+            nextBatch(index - size + 1);
+        return index;
     }
 
 }
@@ -0,0 +1,175 @@
+package hr.fer.zemris.java.gui.prim;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * {@code Primality} offers primality tests of large numbers.
+ * <p>
+ * Numbers of type {@code long} are tested with a deterministic Miller-Rabin test, using
+ * a set of seven bases which is known to have no counterexamples below {@code 2^64}.
+ * Modular multiplication is done in Montgomery form, avoiding divisions. Larger numbers
+ * fall back to {@link BigInteger#isProbablePrime(int)}.
+ * @author MatijaPav
+ */
+public final class Primality {
+    /**
+     * Bases of the Miller-Rabin test which are deterministic for all {@code long} values.
+     */
+    private static final long[] BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+    /**
+     * Primes used for trial division before the Miller-Rabin test.
+     */
+    private static final int[] SMALL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47};
+
+    /**
+     * Certainty of the test of numbers which don't fit in {@code long}.
+     */
+    private static final int BIG_CERTAINTY = 100;
+
+    /**
+     * Largest prime representable as {@code long}.
+     */
+    private static final long LARGEST_LONG_PRIME = Long.MAX_VALUE - 24;
+
+    private Primality(){
+    }
+
+    /**
+     * Checks if given number is a prime number.
+     * @param n checked number.
+     * @return {@code true} if number is prime, {@code false} otherwise.
+     */
+    public static boolean isPrime(long n){
+        if(n < 2)
+            return false;
+        for(int p: SMALL_PRIMES){
+            if(n % p == 0)
+                return n == p;
+        }
+        if(n < 53 * 53)
+            return true;
+        return millerRabin(n);
+    }
+
+    /**
+     * Checks if given number is a prime number. Numbers larger than {@link Long#MAX_VALUE}
+     * are checked with a probabilistic test whose error probability is below {@code 2^-100}.
+     * @param n checked number.
+     * @return {@code true} if number is prime, {@code false} otherwise.
+     */
+    public static boolean isPrime(BigInteger n){
+        Objects.requireNonNull(n, "Number can't be null!");
+        if(n.bitLength() < Long.SIZE)
+            return isPrime(n.longValue());
+        return n.isProbablePrime(BIG_CERTAINTY);
+    }
+
+    /**
+     * Finds the smallest prime which is not smaller than {@code n}.
+     * @param n lower bound.
+     * @return smallest prime not smaller than {@code n}.
+     * @throws ArithmeticException if there is no such prime representable as {@code long}.
+     */
+    public static long nextPrime(long n){
+        if(n <= 2)
+            return 2;
+        if(n > LARGEST_LONG_PRIME)
+            throw new ArithmeticException("There is no prime larger than " + n + " representable as long!");
+        long candidate = n | 1;
+        while(!isPrime(candidate))
+            candidate += 2;
+        return candidate;
+    }
+
+    /**
+     * Deterministic Miller-Rabin test of an odd number without small factors.
+     * @param n checked number.
+     * @return {@code true} if number is prime, {@code false} otherwise.
+     */
+    private static boolean millerRabin(long n){
+        long nPrime = montgomeryInverse(n);
+        long one = Long.remainderUnsigned(-n, n);
+        long minusOne = n - one;
+        long r2 = one;
+        for(int i = 0; i < Long.SIZE; i++){
+            r2 <<= 1;
+            if(Long.compareUnsigned(r2, n) >= 0)
+                r2 -= n;
+        }
+
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>>= s;
+
+        for(long base: BASES){
+            long a = base % n;
+            if(a == 0)
+                continue;
+            long x = power(reduce(a, r2, n, nPrime), d, one, n, nPrime);
+            if(x == one || x == minusOne)
+                continue;
+            boolean composite = true;
+            for(int i = 1; i < s && composite; i++){
+                x = reduce(x, x, n, nPrime);
+                if(x == minusOne)
+                    composite = false;
+            }
+            if(composite)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Raises a number in Montgomery form to the given power.
+     * @param base base in Montgomery form.
+     * @param exponent non-negative exponent.
+     * @param one {@code 1} in Montgomery form.
+     * @param n odd modulus, smaller than {@code 2^63}.
+     * @param nPrime {@code -n^-1 mod 2^64}.
+     * @return {@code base^exponent} in Montgomery form.
+     */
+    private static long power(long base, long exponent, long one, long n, long nPrime){
+        long result = one;
+        while(exponent != 0){
+            if((exponent & 1) != 0)
+                result = reduce(result, base, n, nPrime);
+            base = reduce(base, base, n, nPrime);
+            exponent >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Montgomery product, {@code a * b * 2^-64 mod n}.
+     * @param a first factor, smaller than {@code n}.
+     * @param b second factor, smaller than {@code n}.
+     * @param n odd modulus, smaller than {@code 2^63}.
+     * @param nPrime {@code -n^-1 mod 2^64}.
+     * @return Montgomery product, smaller than {@code n}.
+     */
+    private static long reduce(long a, long b, long n, long nPrime){
+        // factors are non-negative, so the signed high product is exact
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        long m = low * nPrime;
+        long mnHigh = Math.multiplyHigh(m, n) + ((m >> 63) & n);
+        // low + m * n is divisible by 2^64, so it carries exactly when low isn't zero
+        long t = high + mnHigh + (low != 0 ? 1 : 0);
+        return Long.compareUnsigned(t, n) >= 0 ? t - n : t;
+    }
+
+    /**
+     * Calculates {@code -n^-1 mod 2^64} with Newton's iteration.
+     * @param n odd number.
+     * @return negated inverse of {@code n} modulo {@code 2^64}.
+     */
+    private static long montgomeryInverse(long n){
+        long inverse = n;
+        for(int i = 0; i < 5; i++)
+            inverse *= 2 - n * inverse;
+        return -inverse;
+    }
+}
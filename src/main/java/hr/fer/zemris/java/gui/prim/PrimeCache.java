@@ -0,0 +1,143 @@
+package hr.fer.zemris.java.gui.prim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
+
+/**
+ * {@code PrimeCache} stores generated primes in a binary file, so a {@link PrimeSieve}
+ * can continue where the previous one stopped.
+ * <p>
+ * The file starts with a header of four big-endian {@code int}s: magic number, format version,
+ * number of primes and CRC32C checksum of the primes. The primes follow as big-endian
+ * {@code int}s. Loaded primes are copied to the heap rather than memory-mapped, because a mapping
+ * stays open until it is garbage collected and keeps {@link #save(Path, PrimeSieve)} from replacing
+ * the file on platforms which don't allow replacing mapped files, such as Windows.
+ * @author MatijaPav
+ */
+public final class PrimeCache {
+    /**
+     * Magic number which starts every cache file, "PRIM" in ASCII.
+     */
+    private static final int MAGIC = 0x5052494D;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    /**
+     * Number of primes written at once.
+     */
+    private static final int WRITE_BATCH = 1 << 14;
+
+    private PrimeCache(){
+    }
+
+    /**
+     * Creates a {@link PrimeSieve} which continues after the primes stored in the file.
+     * A file which is missing, truncated or corrupted is ignored, so the sieve starts
+     * from the beginning and the file gets replaced by the next {@link #save(Path, PrimeSieve)}.
+     * Reading takes time proportional to the size of the file, so GUIs should load it off the
+     * event dispatch thread.
+     * @param file cache file.
+     * @return {@code PrimeSieve} backed by the cached primes.
+     */
+    public static PrimeSieve load(Path file){
+        Objects.requireNonNull(file, "File can't be null!");
+        return new PrimeSieve(read(file), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads the primes stored in the file, verifying its integrity.
+     * @param file cache file.
+     * @return read primes, or {@code null} if the file is missing or invalid.
+     */
+    static IntBuffer read(Path file){
+        if(!Files.isRegularFile(file))
+            return null;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            long size = channel.size();
+            if(size < HEADER_SIZE)
+                return null;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while(header.hasRemaining() && channel.read(header, header.position()) >= 0);
+            header.flip();
+            if(header.getInt() != MAGIC || header.getInt() != VERSION)
+                return null;
+            int count = header.getInt();
+            int checksum = header.getInt();
+            if(count < 0 || count > Integer.MAX_VALUE / Integer.BYTES
+                    || size != HEADER_SIZE + (long) count * Integer.BYTES)
+                return null;
+
+            ByteBuffer data = ByteBuffer.allocate(count * Integer.BYTES);
+            while(data.hasRemaining() && channel.read(data, HEADER_SIZE + data.position()) >= 0);
+            if(data.hasRemaining())
+                return null;
+            data.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(data.duplicate());
+            if((int) crc.getValue() != checksum)
+                return null;
+            return data.asIntBuffer();
+        } catch (IOException e){
+            return null;
+        }
+    }
+
+    /**
+     * Stores all primes generated by the sieve in the file, replacing it atomically.
+     * @param file cache file.
+     * @param sieve sieve whose primes are stored.
+     * @throws IOException if the file can't be written.
+     */
+    public static void save(Path file, PrimeSieve sieve) throws IOException {
+        Objects.requireNonNull(file, "File can't be null!");
+        Objects.requireNonNull(sieve, "Sieve can't be null!");
+        int count = sieve.size();
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, "primes", ".tmp");
+
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)){
+            CRC32C crc = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BATCH * Integer.BYTES);
+            channel.position(HEADER_SIZE);
+            for(int i = 0; i < count; ){
+                buffer.clear();
+                for(int end = Math.min(count, i + WRITE_BATCH); i < end; i++)
+                    buffer.putInt(sieve.get(i));
+                buffer.flip();
+                crc.update(buffer.duplicate());
+                while(buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt((int) crc.getValue());
+            header.flip();
+            while(header.hasRemaining())
+                channel.write(header, header.position());
+            channel.force(true);
+        } catch (IOException e){
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,423 @@
+package hr.fer.zemris.java.gui.prim;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@code PrimeSieve} generates consecutive primes with a segmented sieve of Eratosthenes.
+ * Primes are sieved in blocks of {@link #SEGMENT_SIZE} odd numbers and stored in fixed size
+ * {@code int} chunks, so every prime is computed only once and takes four bytes of memory.
+ * A sieve can also continue from primes loaded by {@link PrimeCache}.
+ * <p>
+ * Generation is serialized between threads, one segment at a time. Primes which
+ * are already generated can be read from any thread without blocking. Large requests
+ * are sieved in waves of segments processed concurrently by a {@link ForkJoinPool}
+ * and appended in order.
+ * @author MatijaPav
+ */
+public class PrimeSieve {
+    /**
+     * Number of odd numbers sieved at once.
+     */
+    static final int SEGMENT_SIZE = 1 << 15;
+
+    /**
+     * Largest number the sieve can reach.
+     */
+    static final long LIMIT = Integer.MAX_VALUE;
+
+    /**
+     * Number of missing primes above which segments are sieved in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    /**
+     * Number of segments per worker thread in one parallel wave.
+     */
+    private static final int SEGMENTS_PER_WORKER = 4;
+
+    /**
+     * Number of odd numbers in one segment of {@link #countPrimes(long, ForkJoinPool)}.
+     */
+    private static final int COUNT_SEGMENT_SIZE = 1 << 18;
+
+    /**
+     * Number of segments below which counting is no longer split between workers.
+     */
+    private static final int COUNT_THRESHOLD = 8;
+
+    /**
+     * Largest limit accepted by {@link #countPrimes(long, ForkJoinPool)}.
+     */
+    private static final long COUNT_LIMIT = 1L << 48;
+
+    /**
+     * Binary logarithm of the number of primes in one chunk.
+     */
+    private static final int CHUNK_BITS = 16;
+
+    /**
+     * Mask of the index of a prime within its chunk.
+     */
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    /**
+     * Primes up to the square root of {@link #LIMIT}, used to sieve every segment.
+     */
+    private static final int[] BASE_PRIMES = basePrimes((int) Math.sqrt((double) LIMIT) + 1);
+
+    /**
+     * Primes loaded from a cache, or {@code null}.
+     */
+    private final IntBuffer cached;
+
+    /**
+     * Number of primes in {@link #cached}.
+     */
+    private final int cachedCount;
+
+    /**
+     * Chunks of generated primes following the cached ones, only the
+     * first {@code count - cachedCount} primes are used.
+     */
+    private volatile int[][] chunks;
+
+    /**
+     * Number of generated primes, written after the primes themselves.
+     */
+    private volatile int count;
+
+    /**
+     * First odd number which hasn't been sieved yet.
+     */
+    private long next;
+
+    /**
+     * Marks of composite odd numbers in the current segment, reused between segments.
+     */
+    private final boolean[] composite;
+
+    /**
+     * Pool which sieves large requests in parallel.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a {@code PrimeSieve}, sieving large requests in the common fork-join pool.
+     */
+    public PrimeSieve(){
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a {@code PrimeSieve}.
+     * @param pool pool which sieves large requests in parallel.
+     */
+    public PrimeSieve(ForkJoinPool pool){
+        this(null, pool);
+    }
+
+    /**
+     * Creates a {@code PrimeSieve} which continues after the given primes.
+     * @param cached consecutive primes starting with {@code 2}, or {@code null}.
+     * @param pool pool which sieves large requests in parallel.
+     */
+    PrimeSieve(IntBuffer cached, ForkJoinPool pool){
+        this.pool = Objects.requireNonNull(pool, "Pool can't be null!");
+        this.composite = new boolean[SEGMENT_SIZE];
+        this.chunks = new int[16][];
+        if(cached == null || cached.limit() == 0){
+            this.cached = null;
+            this.cachedCount = 0;
+            this.count = append(0, 2);
+            this.next = 3;
+        } else {
+            this.cached = cached;
+            this.cachedCount = cached.limit();
+            this.count = cachedCount;
+            int last = cached.get(cachedCount - 1);
+            this.next = last == 2 ? 3 : last + 2L;
+        }
+    }
+
+    /**
+     * @return number of primes generated so far.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the prime at the given index, generating it if necessary.
+     * @param index index of the prime, {@code 0} being the index of {@code 2}.
+     * @return prime at the given index.
+     * @throws IndexOutOfBoundsException if index is negative.
+     * @throws IllegalStateException if the prime is larger than {@link Integer#MAX_VALUE}.
+     */
+    public int get(int index){
+        if(index < 0)
+            throw new IndexOutOfBoundsException("Index can't be negative!");
+        ensureCount(index + 1);
+        if(index < cachedCount)
+            return cached.get(index);
+        int i = index - cachedCount;
+        return chunks[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the n-th prime.
+     * @param n ordinal of the prime, {@code 1} being the ordinal of {@code 2}.
+     * @return n-th prime.
+     * @throws IllegalArgumentException if {@code n} isn't positive.
+     * @throws IllegalStateException if the prime is larger than {@link Integer#MAX_VALUE}.
+     */
+    public int nthPrime(int n){
+        if(n < 1)
+            throw new IllegalArgumentException("Ordinal of a prime must be positive!");
+        return get(n - 1);
+    }
+
+    /**
+     * Finds the index of the smallest prime which is not smaller than {@code value},
+     * generating primes up to it if necessary.
+     * @param value lower bound.
+     * @return index of the smallest prime not smaller than {@code value}.
+     * @throws IllegalStateException if there is no such prime representable as {@code int}.
+     */
+    public int indexOf(int value){
+        while(get(count - 1) < value)
+            ensureCount(count + 1);
+        int low = 0;
+        int high = count - 1;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(get(mid) < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Generates primes until at least {@code n} of them are available.
+     * @param n required number of primes.
+     * @throws IllegalStateException if there aren't {@code n} primes smaller than {@link Integer#MAX_VALUE}.
+     */
+    public void ensureCount(int n){
+        while(n > count){
+            synchronized (this){
+                if(n <= count)
+                    return;
+                if(next > LIMIT)
+                    throw new IllegalStateException("There are only " + count + " primes representable as int!");
+                if(n - count > PARALLEL_THRESHOLD && pool.getParallelism() > 1)
+                    sieveWave();
+                else
+                    sieveSegment();
+            }
+        }
+    }
+
+    /**
+     * Sieves the next segment of odd numbers and appends the primes found in it.
+     */
+    private void sieveSegment(){
+        long low = next;
+        int length = segmentLength(low);
+        markComposites(BASE_PRIMES, low, length, composite);
+
+        int size = count;
+        for(int i = 0; i < length; i++){
+            if(!composite[i])
+                size = append(size, (int) (low + 2L * i));
+        }
+        next = low + 2L * length;
+        count = size;
+    }
+
+    /**
+     * Sieves the next few segments concurrently and appends their primes in order.
+     */
+    private void sieveWave(){
+        List<ForkJoinTask<int[]>> tasks = new ArrayList<>();
+        long low = next;
+        for(int i = pool.getParallelism() * SEGMENTS_PER_WORKER; i > 0 && low <= LIMIT; i--){
+            long segmentLow = low;
+            int length = segmentLength(low);
+            tasks.add(pool.submit(() -> sievePrimes(BASE_PRIMES, segmentLow, length)));
+            low += 2L * length;
+        }
+
+        for(ForkJoinTask<int[]> task: tasks){
+            int size = count;
+            for(int p: task.join())
+                size = append(size, p);
+            count = size;
+        }
+        next = low;
+    }
+
+    /**
+     * Finds the primes among odd numbers of a segment.
+     * @param base base primes, starting with {@code 2}.
+     * @param low first number of the segment, odd.
+     * @param length number of odd numbers in the segment.
+     * @return primes in the segment, in ascending order.
+     */
+    private static int[] sievePrimes(int[] base, long low, int length){
+        boolean[] composite = new boolean[length];
+        markComposites(base, low, length, composite);
+        int[] primes = new int[length];
+        int size = 0;
+        for(int i = 0; i < length; i++){
+            if(!composite[i])
+                primes[size++] = (int) (low + 2L * i);
+        }
+        return Arrays.copyOf(primes, size);
+    }
+
+    /**
+     * Calculates the number of odd numbers in the segment starting at {@code low}.
+     * @param low first number of the segment, odd.
+     * @return length of the segment.
+     */
+    private static int segmentLength(long low){
+        long high = Math.min(low + 2L * SEGMENT_SIZE, LIMIT + 1);
+        return (int) ((high - low + 1) / 2);
+    }
+
+    /**
+     * Marks odd multiples of the base primes in a segment, {@code composite[i]} representing
+     * {@code low + 2 * i}. Base primes must include all primes up to the square root of the
+     * last number in the segment.
+     * @param base base primes, starting with {@code 2}.
+     * @param low first number of the segment, odd.
+     * @param length number of odd numbers in the segment.
+     * @param composite marks, cleared before sieving.
+     */
+    private static void markComposites(int[] base, long low, int length, boolean[] composite){
+        Arrays.fill(composite, 0, length, false);
+        long last = low + 2L * (length - 1);
+        for(int k = 1; k < base.length; k++){
+            long p = base[k];
+            if(p * p > last)
+                break;
+            long start = Math.max(p * p, (low + p - 1) / p * p);
+            if((start & 1) == 0)
+                start += p;
+            for(long j = (start - low) / 2; j < length; j += p)
+                composite[(int) j] = true;
+        }
+    }
+
+    /**
+     * Counts primes which are not larger than {@code limit}, sieving segments concurrently.
+     * Primes are only counted, so the limit isn't restricted to the {@code int} range.
+     * @param limit largest counted number.
+     * @param pool pool which sieves the segments.
+     * @return number of primes not larger than {@code limit}.
+     * @throws IllegalArgumentException if limit is larger than {@code 2^48}.
+     */
+    public static long countPrimes(long limit, ForkJoinPool pool){
+        Objects.requireNonNull(pool, "Pool can't be null!");
+        if(limit > COUNT_LIMIT)
+            throw new IllegalArgumentException("Limit can't be larger than " + COUNT_LIMIT + "!");
+        if(limit < 2)
+            return 0;
+        if(limit < 3)
+            return 1;
+
+        int[] base = basePrimes((int) Math.sqrt((double) limit) + 1);
+        long odds = (limit - 1) / 2;
+        int segments = (int) ((odds + COUNT_SEGMENT_SIZE - 1) / COUNT_SEGMENT_SIZE);
+        return 1 + pool.invoke(new CountTask(base, limit, 0, segments));
+    }
+
+    /**
+     * Finds all primes up to the given bound with a plain sieve.
+     * @param bound largest checked number.
+     * @return primes up to {@code bound}, in ascending order.
+     */
+    private static int[] basePrimes(int bound){
+        boolean[] composite = new boolean[bound + 1];
+        int[] primes = new int[Math.max(16, bound / 2)];
+        int size = 0;
+        for(int i = 2; i <= bound; i++){
+            if(composite[i])
+                continue;
+            primes[size++] = i;
+            for(long j = (long) i * i; j <= bound; j += i)
+                composite[(int) j] = true;
+        }
+        return Arrays.copyOf(primes, size);
+    }
+
+    /**
+     * Task which counts odd primes in a range of segments, splitting it in halves while it is large.
+     */
+    private static class CountTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] base;
+        private final long limit;
+        private final int from;
+        private final int to;
+
+        CountTask(int[] base, long limit, int from, int to){
+            this.base = base;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if(to - from > COUNT_THRESHOLD){
+                int mid = (from + to) >>> 1;
+                CountTask left = new CountTask(base, limit, from, mid);
+                left.fork();
+                long right = new CountTask(base, limit, mid, to).compute();
+                return left.join() + right;
+            }
+
+            boolean[] composite = new boolean[COUNT_SEGMENT_SIZE];
+            long count = 0;
+            for(int segment = from; segment < to; segment++){
+                long low = 3 + 2L * COUNT_SEGMENT_SIZE * segment;
+                int length = (int) Math.min(COUNT_SEGMENT_SIZE, (limit - low) / 2 + 1);
+                markComposites(base, low, length, composite);
+                for(int i = 0; i < length; i++){
+                    if(!composite[i])
+                        count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Stores a prime at the given index, allocating a new chunk when needed.
+     * The prime becomes visible to other threads once {@link #count} is updated.
+     * @param index index of the prime, not smaller than the number of cached primes.
+     * @param p stored prime.
+     * @return index following the stored prime.
+     */
+    private int append(int index, int p){
+        int i = index - cachedCount;
+        int chunk = i >>> CHUNK_BITS;
+        int[][] current = chunks;
+        if(chunk == current.length)
+            chunks = current = Arrays.copyOf(current, current.length * 2);
+        if(current[chunk] == null)
+            current[chunk] = new int[1 << CHUNK_BITS];
+        current[chunk][i & CHUNK_MASK] = p;
+        return index + 1;
+    }
+}
@@ -0,0 +1,81 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+public class CalcCliTest {
+    private final StringWriter output = new StringWriter();
+    private final StringWriter errors = new StringWriter();
+
+    private long run(CalcCli.Mode mode, String csvExpression, int maxLine, String input) throws IOException {
+        CalcCli cli = new CalcCli(mode, new CalcModelImpl(), csvExpression, maxLine);
+        return cli.run(new StringReader(input), output, new PrintWriter(errors));
+    }
+
+    @Test
+    public void keystrokeLines() throws IOException {
+        long failed = run(CalcCli.Mode.KEYS, null, 100, "2 + 3 =\n1 . .\r\n\n12 x^n 2 =\n10 push 2 pop 1/x");
+
+        assertEquals(1, failed);
+        assertEquals("5.0\nNaN\n0\n144.0\n0.1\n", output.toString());
+        assertTrue(errors.toString().startsWith("Line 2: "));
+    }
+
+    @Test
+    public void stackIsClearedBetweenLines() throws IOException {
+        String input = "1 push\n".repeat(1000) + "5 pop";
+        long failed = run(CalcCli.Mode.KEYS, null, 100, input);
+
+        assertEquals(0, failed);
+        assertEquals("0\n".repeat(1000) + "5\n", output.toString());
+    }
+
+    @Test
+    public void signIsResetBetweenLines() throws IOException {
+        String input = "5 +/-\n3\n2 + 3 =\n";
+        assertEquals(0, run(CalcCli.Mode.KEYS, null, 100, input));
+        assertEquals("-5\n3\n5.0\n", output.toString());
+
+        CalcCli decimal = new CalcCli(CalcCli.Mode.KEYS, new DecimalCalcModel(), null, 100);
+        StringWriter decimalOutput = new StringWriter();
+        assertEquals(0, decimal.run(new StringReader(input), decimalOutput, new PrintWriter(errors)));
+        assertEquals("-5\n3\n5\n", decimalOutput.toString());
+    }
+
+    @Test
+    public void expressionLines() throws IOException {
+        long failed = run(CalcCli.Mode.EXPR, null, 100, "2 + 3 * 4\nsin(\n2 ^ 10\n");
+
+        assertEquals(1, failed);
+        assertEquals("14.0\nNaN\n1024.0\n", output.toString());
+    }
+
+    @Test
+    public void csvRowsGetResultColumn() throws IOException {
+        long failed = run(CalcCli.Mode.CSV, "x * y + 1", 100, "x, y\n2,3\n1.5, -2\n1,2,3\nfoo,1\n4,\n0,0\n");
+
+        assertEquals(3, failed);
+        assertEquals("x, y,result\n2,3,7.0\n1.5, -2,-2.0\n1,2,3,NaN\nfoo,1,NaN\n4,,NaN\n0,0,1.0\n", output.toString());
+    }
+
+    @Test
+    public void longLinesAreSkipped() throws IOException {
+        String longLine = "1 + ".repeat(5000) + "1";
+        long failed = run(CalcCli.Mode.EXPR, null, 1000, "1\n" + longLine + "\n" + "1+".repeat(499) + "11\r\n2");
+
+        assertEquals(1, failed);
+        assertEquals("1.0\nNaN\n510.0\n2.0\n", output.toString());
+        assertTrue(errors.toString().startsWith("Line 2: Line is longer than 1000 characters!"));
+    }
+
+    @Test
+    public void invalidCsvHeaderThrows() {
+        assertThrows(RuntimeException.class, () -> run(CalcCli.Mode.CSV, "x + z", 100, "x,y\n1,2\n"));
+        assertThrows(RuntimeException.class, () -> run(CalcCli.Mode.CSV, "x", 100, ""));
+    }
+}
@@ -0,0 +1,267 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CalcModelImplTest {
+
+    private CalcModelImpl model;
+
+    @BeforeEach
+    public void setup() {
+        model = new CalcModelImpl();
+    }
+
+    @Test
+    public void listenersMayRegisterAndRemoveDuringNotification() {
+        List<String> calls = new ArrayList<>();
+        CalcValueListener late = m -> calls.add("late");
+        CalcValueListener[] once = new CalcValueListener[1];
+        once[0] = m -> {
+            calls.add("once");
+            model.removeCalcValueListener(once[0]);
+            model.addCalcValueListener(late);
+        };
+        model.addCalcValueListener(once[0]);
+
+        model.insertDigit(1);
+        assertEquals(List.of("once"), calls);
+
+        model.insertDigit(2);
+        assertEquals(List.of("once", "late"), calls);
+    }
+
+    @Test
+    public void typedValueMatchesParsedText() {
+        List<String> inputs = new ArrayList<>(List.of(
+            "9007199254740991", "9007199254740992", "9007199254740993", "90071992547409931",
+            "900719925474099.3", "0.1234567890123456", "0.1234567890123456789012",
+            "1.000000000000000000001", "0.00000000000000000000012345", "123456789012345678901234567890"));
+        Random random = new Random(42);
+        for(int i = 0; i < 1000; i++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(1 + random.nextInt(9));
+            int length = 1 + random.nextInt(24);
+            int point = random.nextInt(length + 1);
+            for(int j = 1; j < length; j++) {
+                if(j == point)
+                    sb.append('.');
+                sb.append(random.nextInt(10));
+            }
+            inputs.add(sb.toString());
+        }
+
+        for(String text : inputs) {
+            model.clearAll();
+            for(int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if(c == '.')
+                    model.insertDecimalPoint();
+                else
+                    model.insertDigit(c - '0');
+                // checked after every keystroke, so both sides of the switch to parsing are covered
+                String typed = text.substring(0, i + 1);
+                assertEquals(Double.parseDouble(typed), model.getValue(), typed);
+            }
+        }
+    }
+
+    @Test
+    public void removedListenerIsNotNotified() {
+        List<Double> values = new ArrayList<>();
+        CalcValueListener l = m -> values.add(m.getValue());
+        model.addCalcValueListener(l);
+        model.insertDigit(4);
+        model.removeCalcValueListener(l);
+        model.insertDigit(2);
+
+        assertEquals(List.of(4.0), values);
+    }
+
+    @Test
+    public void asyncListenerCoalescesPendingNotifications() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<Double> values = new ArrayList<>();
+        CalcValueListener slow = m -> values.add(m.getValue());
+        model.addCalcValueListener(slow, tasks::add);
+
+        model.insertDigit(1);
+        model.insertDigit(2);
+        model.insertDigit(3);
+        assertEquals(1, tasks.size());
+        assertTrue(values.isEmpty());
+
+        tasks.poll().run();
+        assertEquals(List.of(123.0), values);
+
+        model.insertDigit(4);
+        assertEquals(1, tasks.size());
+        model.removeCalcValueListener(slow);
+        tasks.poll().run();
+        model.insertDigit(5);
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void asyncListenerGetsSnapshot() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<CalcModel> models = new ArrayList<>();
+        model.addCalcValueListener(models::add, tasks::add);
+
+        model.setActiveOperand(2);
+        model.setPendingBinaryOperation(CalcOperator.ADD);
+        model.insertDigit(4);
+        model.swapSign();
+        tasks.poll().run();
+        model.clearAll();
+
+        CalcModel snapshot = models.get(0);
+        assertNotSame(model, snapshot);
+        assertEquals("-4", snapshot.toString());
+        assertEquals(-4, snapshot.getValue());
+        assertEquals(2, snapshot.getActiveOperand());
+        assertEquals(CalcOperator.ADD, snapshot.getPendingBinaryOperation());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.insertDigit(1));
+    }
+
+    @Test
+    public void groupedChangesNotifyOnceWithFinalState() {
+        List<String> shown = new ArrayList<>();
+        model.addCalcValueListener(m -> shown.add(m.toString()));
+
+        model.beginUpdate();
+        model.clearAll();
+        model.beginUpdate();
+        for (int i = 1; i <= 9; i++) {
+            model.insertDigit(i);
+        }
+        model.endUpdate();
+        model.swapSign();
+        assertTrue(shown.isEmpty());
+        model.endUpdate();
+
+        assertEquals(List.of("-123456789"), shown);
+        assertThrows(IllegalStateException.class, model::endUpdate);
+    }
+
+    @Test
+    public void groupWithoutChangesDoesNotNotify() {
+        List<String> shown = new ArrayList<>();
+        model.addCalcValueListener(m -> shown.add(m.toString()));
+
+        model.beginUpdate();
+        model.setActiveOperand(2);
+        model.endUpdate();
+
+        assertTrue(shown.isEmpty());
+    }
+
+    @Test
+    public void sessionProgramNotifiesOnce() {
+        CalcSession session = new CalcSession(model);
+        List<String> shown = new ArrayList<>();
+        model.addCalcValueListener(m -> shown.add(m.toString()));
+
+        session.execute(CalcProgram.compile("reset 12345678901234567890 + 1 ="));
+
+        assertEquals(1, shown.size());
+        assertEquals(model.toString(), shown.get(0));
+    }
+
+    private double keystrokes(int rounds) {
+        double sum = 0;
+        for (int r = 0; r < rounds; r++) {
+            model.clear();
+            for (int d = 1; d <= 6; d++) {
+                model.insertDigit(d);
+            }
+            model.insertDecimalPoint();
+            model.insertDigit(5);
+            model.swapSign();
+            model.setActiveOperand(model.getValue());
+            sum += model.getActiveOperand() * model.getValue();
+            model.clearActiveOperand();
+        }
+        return sum;
+    }
+
+    @Test
+    public void keystrokesDoNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        model.addCalcValueListener(m -> {});
+        long id = Thread.currentThread().getId();
+
+        keystrokes(20_000);
+        int rounds = 100_000;
+        long before = threads.getThreadAllocatedBytes(id);
+        double sum = keystrokes(rounds);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+        assertNotEquals(0, sum);
+        // Each round is eleven keystrokes, so allowing less than a byte per round only covers measuring overhead.
+        assertTrue(allocated < rounds, "Allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void coalescedAsyncNotificationsDoNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        List<Runnable> tasks = new ArrayList<>();
+        model.addCalcValueListener(new AsyncCalcValueListener(m -> {}, tasks::add));
+        long id = Thread.currentThread().getId();
+
+        keystrokes(20_000);
+        int rounds = 100_000;
+        long before = threads.getThreadAllocatedBytes(id);
+        double sum = keystrokes(rounds);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+        assertNotEquals(0, sum);
+        assertEquals(1, tasks.size());
+        assertTrue(allocated < rounds, "Allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void displayTextIsCachedUntilChange() {
+        model.insertDigit(4);
+        model.insertDecimalPoint();
+        String text = model.toString();
+        assertSame(text, model.toString());
+
+        model.insertDigit(2);
+        assertEquals("4.2", model.toString());
+        model.swapSign();
+        assertEquals("-4.2", model.toString());
+        model.setValue(1.5);
+        assertEquals("1.5", model.toString());
+    }
+
+    @Test
+    public void appendToMatchesToString() {
+        StringBuilder sb = new StringBuilder("x=");
+        assertSame(sb, model.appendTo(sb));
+        model.insertDigit(7);
+        model.swapSign();
+        model.appendTo(sb.append(';'));
+        model.toString();
+        model.appendTo(sb.append(';'));
+
+        assertEquals("x=0;-7;-7", sb.toString());
+    }
+}
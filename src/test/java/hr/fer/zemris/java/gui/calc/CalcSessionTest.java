@@ -0,0 +1,115 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CalcSessionTest {
+
+    private CalcSession session;
+
+    @BeforeEach
+    public void setup() {
+        session = new CalcSession();
+    }
+
+    private void run(String program) {
+        session.execute(CalcProgram.compile(program));
+    }
+
+    @Test
+    public void exampleFromHomeworkAssignment() {
+        run("58 + 14 =");
+
+        assertEquals(72.0, session.getModel().getValue(), 1E-10);
+        assertEquals("72.0", session.getModel().toString());
+    }
+
+    @Test
+    public void chainedOperatorsCalculatePendingOperation() {
+        run("2 + 3 * 4 =");
+
+        assertEquals(20.0, session.getModel().getValue(), 1E-10);
+    }
+
+    @Test
+    public void decimalPointAndSwapSign() {
+        run("0.32 +/-");
+
+        assertEquals(-0.32, session.getModel().getValue(), 1E-10);
+        assertEquals("-0.32", session.getModel().toString());
+    }
+
+    @Test
+    public void inverseFunctions() {
+        run("2 10^x");
+        assertEquals(100.0, session.getModel().getValue(), 1E-10);
+
+        run("clr 1 arcsin");
+        assertEquals(Math.PI / 2, session.getModel().getValue(), 1E-10);
+
+        run("clr 27 x^(1/n) 3 =");
+        assertEquals(3.0, session.getModel().getValue(), 1E-10);
+    }
+
+    @Test
+    public void nextPrimeFunction() {
+        run("7920 prime");
+        assertEquals(7927.0, session.getModel().getValue(), 1E-10);
+
+        run("clr 12.5 prime");
+        assertEquals(13.0, session.getModel().getValue(), 1E-10);
+    }
+
+    @Test
+    public void pushAndPop() {
+        run("42 push 7 pop");
+
+        assertEquals(42.0, session.getModel().getValue(), 1E-10);
+        assertFalse(session.getModel().isEditable());
+    }
+
+    @Test
+    public void popOnEmptyStackIsIgnored() {
+        run("5 pop");
+
+        assertEquals(5.0, session.getModel().getValue(), 1E-10);
+        assertTrue(session.getModel().isEditable());
+    }
+
+    @Test
+    public void invalidInputThrows() {
+        assertThrows(CalculatorInputException.class, () -> run("1.2.3"));
+    }
+
+    @Test
+    public void unknownKeystrokeThrows() {
+        assertThrows(IllegalArgumentException.class, () -> CalcProgram.compile("1 + foo"));
+    }
+
+    @Test
+    public void evaluateAllMatchesSequentialExecution() {
+        List<CalcProgram> programs = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) {
+            programs.add(CalcProgram.compile(i + " * 3 - 1 ="));
+        }
+        programs.add(CalcProgram.compile("1 sin 2"));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        double[] results;
+        try {
+            results = CalcSession.evaluateAll(programs, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        for(int i = 0; i < 1000; i++) {
+            assertEquals(i * 3 - 1, results[i], 1E-10);
+        }
+        assertTrue(Double.isNaN(results[1000]));
+    }
+}
@@ -0,0 +1,102 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ColumnEvaluatorTest {
+    private static final int LENGTH = 5 * ColumnEvaluator.CHUNK_SIZE + 17;
+
+    private ForkJoinPool pool;
+    private ColumnEvaluator evaluator;
+    private double[] left;
+    private double[] right;
+
+    @BeforeEach
+    public void setup() {
+        pool = new ForkJoinPool(3);
+        evaluator = new ColumnEvaluator(pool);
+        Random random = new Random(42);
+        left = random.doubles(LENGTH, -10, 10).toArray();
+        right = random.doubles(LENGTH, -10, 10).toArray();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void functionsMatchSingleEvaluation() {
+        double[] out = new double[LENGTH];
+        for(CalcFunction f : CalcFunction.values()) {
+            if(f == CalcFunction.NEXT_PRIME)
+                continue;
+            evaluator.apply(f, left, out);
+            for(int i = 0; i < LENGTH; i++)
+                assertEquals(f.applyAsDouble(left[i]), out[i], f.name());
+        }
+        evaluator.apply(x -> x * 3, left, out);
+        assertEquals(3 * left[LENGTH - 1], out[LENGTH - 1]);
+    }
+
+    @Test
+    public void operatorsMatchSingleEvaluation() {
+        double[] out = new double[LENGTH];
+        for(CalcOperator op : CalcOperator.values()) {
+            evaluator.apply(op, left, right, out);
+            for(int i = 0; i < LENGTH; i++)
+                assertEquals(op.applyAsDouble(left[i], right[i]), out[i], op.name());
+
+            evaluator.apply(op, left, 3, out);
+            for(int i = 0; i < LENGTH; i++)
+                assertEquals(op.applyAsDouble(left[i], 3), out[i], op.name());
+        }
+    }
+
+    @Test
+    public void outputMayBeInput() {
+        double[] expected = left.clone();
+        evaluator.apply(CalcOperator.MULTIPLY, left, left, left);
+
+        for(int i = 0; i < LENGTH; i++)
+            assertEquals(expected[i] * expected[i], left[i]);
+    }
+
+    @Test
+    public void buffersAreProcessedFromPosition() {
+        DoubleBuffer heap = DoubleBuffer.wrap(left);
+        heap.position(5);
+        DoubleBuffer direct = ByteBuffer.allocateDirect(8 * LENGTH).asDoubleBuffer().put(right).flip();
+        direct.position(5);
+        DoubleBuffer out = DoubleBuffer.allocate(LENGTH + 10);
+        out.position(10);
+
+        evaluator.apply(CalcOperator.SUBTRACT, heap, direct, out);
+
+        assertFalse(heap.hasRemaining());
+        assertFalse(direct.hasRemaining());
+        assertEquals(LENGTH + 5, out.position());
+        for(int i = 5; i < LENGTH; i++)
+            assertEquals(left[i] - right[i], out.get(i + 5));
+
+        direct.position(0);
+        DoubleBuffer sines = ByteBuffer.allocateDirect(8 * LENGTH).asDoubleBuffer();
+        evaluator.apply(CalcFunction.SIN, direct, sines);
+        assertEquals(Math.sin(right[LENGTH - 1]), sines.get(LENGTH - 1));
+    }
+
+    @Test
+    public void shortOutputThrows() {
+        assertThrows(IllegalArgumentException.class,
+            () -> evaluator.apply(CalcFunction.SIN, left, new double[LENGTH - 1]));
+        assertThrows(IllegalArgumentException.class,
+            () -> evaluator.apply(CalcOperator.ADD, left, new double[1], new double[LENGTH]));
+    }
+}
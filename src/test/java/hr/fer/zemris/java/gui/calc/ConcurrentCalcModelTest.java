@@ -0,0 +1,87 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentCalcModelTest {
+
+    private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                task.run();
+            });
+            t.start();
+            started.add(t);
+        }
+        start.countDown();
+        for (Thread t : started) {
+            t.join();
+        }
+    }
+
+    @Test
+    public void concurrentChangesAreNotLost() throws InterruptedException {
+        ConcurrentCalcModel model = new ConcurrentCalcModel();
+        model.insertDigit(7);
+
+        runConcurrently(4, () -> {
+            for (int i = 0; i < 10_001; i++) {
+                model.swapSign();
+            }
+        });
+
+        assertEquals(7.0, model.getValue());
+        assertEquals("7", model.toString());
+    }
+
+    @Test
+    public void readersObserveCompleteStates() throws InterruptedException {
+        ConcurrentCalcModel model = new ConcurrentCalcModel();
+        model.setValue(-1.5);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicBoolean torn = new AtomicBoolean();
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                model.setValue(i % 2 == 0 ? 2.25 : -1.5);
+            }
+            writing.set(false);
+        });
+        writer.start();
+        runConcurrently(3, () -> {
+            while (writing.get()) {
+                String text = model.toString();
+                if (!text.equals("2.25") && !text.equals("-1.5")) {
+                    torn.set(true);
+                }
+            }
+        });
+        writer.join();
+
+        assertFalse(torn.get());
+    }
+
+    @Test
+    public void worksWithSession() {
+        CalcSession session = new CalcSession(new ConcurrentCalcModel());
+        List<String> shown = new ArrayList<>();
+        session.getModel().addCalcValueListener(m -> shown.add(m.toString()));
+
+        session.execute(CalcProgram.compile("58 + 14 ="));
+
+        assertEquals(72.0, session.getModel().getValue(), 1E-10);
+        assertEquals("72.0", shown.get(shown.size() - 1));
+    }
+}
@@ -0,0 +1,109 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.MathContext;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class DecimalCalcModelTest {
+
+    private static DecimalCalcModel run(DecimalCalcModel model, String program) {
+        new CalcSession(model).execute(CalcProgram.compile(program));
+        return model;
+    }
+
+    @Test
+    public void sumIsExact() {
+        DecimalCalcModel model = run(new DecimalCalcModel(), "0.1 + 0.2 =");
+
+        assertEquals("0.3", model.toString());
+        assertEquals(ScaledDecimal.parse("0.3"), model.getDecimal());
+        assertEquals(0.3, model.getValue());
+    }
+
+    @Test
+    public void longEntriesAreKeptExactly() {
+        DecimalCalcModel model = run(new DecimalCalcModel(), "12345678901234567890123 + 1 =");
+
+        assertEquals("12345678901234567890124", model.toString());
+    }
+
+    @Test
+    public void quotientIsRoundedToMathContext() {
+        assertEquals("0.3333333", run(new DecimalCalcModel(MathContext.DECIMAL32), "1 / 3 =").toString());
+        assertEquals("2.5", run(new DecimalCalcModel(), "10 / 4 =").toString());
+        assertEquals("1024", run(new DecimalCalcModel(), "2 x^n 10 =").toString());
+    }
+
+    @Test
+    public void inexactOperationsFallBackToDouble() {
+        assertEquals("Infinity", run(new DecimalCalcModel(), "1 / 0 =").toString());
+        assertEquals(1.0 / 3, run(new DecimalCalcModel(MathContext.UNLIMITED), "1 / 3 =").getValue());
+        assertEquals(3.0, run(new DecimalCalcModel(), "27 x^(1/n) 3 =").getValue(), 1E-10);
+    }
+
+    @Test
+    public void resultsOutsideDoubleRangeFallBackToDouble() {
+        DecimalCalcModel model = run(new DecimalCalcModel(), "9 x^n 999999 =");
+        assertEquals("Infinity", model.toString());
+        assertNull(model.getDecimal());
+
+        assertEquals("0.0", run(new DecimalCalcModel(MathContext.UNLIMITED), "0.9 x^n 999999 =").toString());
+        assertNull(CalcOperator.MULTIPLY.apply(ScaledDecimal.parse("1E+300"), ScaledDecimal.parse("1E+300"),
+            MathContext.DECIMAL128));
+
+        model = new DecimalCalcModel();
+        model.setDecimal(ScaledDecimal.parse("-1E+400"));
+        assertEquals("-Infinity", model.toString());
+        assertEquals(Double.NEGATIVE_INFINITY, model.getValue());
+    }
+
+    @Test
+    public void unroundedPowersWithLargeScaleFallBackToDouble() {
+        DecimalCalcModel model = assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> run(new DecimalCalcModel(MathContext.UNLIMITED), "1.0 x^n 999999999 ="));
+        assertEquals(1.0, model.getValue());
+
+        model = run(new DecimalCalcModel(MathContext.UNLIMITED), "1.5 x^n 1000 =");
+        assertEquals(Math.pow(1.5, 1000), model.getValue());
+
+        assertEquals(ScaledDecimal.parse("1.0000000000"),
+            run(new DecimalCalcModel(MathContext.UNLIMITED), "1.0 x^n 10 =").getDecimal());
+    }
+
+    @Test
+    public void largeAndSmallResultsUseExponent() {
+        assertEquals("1.0E50", run(new DecimalCalcModel(), "10 x^n 50 =").toString());
+        assertEquals("1.5E-45", run(new DecimalCalcModel(), "0.1 x^n 45 * 1.5 =").toString());
+        assertEquals("-1.2345678901234567890123E300", run(new DecimalCalcModel(),
+            "10 x^n 300 * 1.2345678901234567890123 * 1 +/- =").toString());
+        assertEquals("1" + "0".repeat(40), run(new DecimalCalcModel(), "10 x^n 40 =").toString());
+    }
+
+    @Test
+    public void doubleValuesDisplayAsInDoubleModel() {
+        double[] values = {1e-5, 1e7, 1234.5, 0.1, 1, 123456789, 1e-300, 1e300, -2.5e-8, 0, -0.001,
+            Double.POSITIVE_INFINITY, Double.NaN};
+        for(double value : values) {
+            CalcModelImpl expected = new CalcModelImpl();
+            DecimalCalcModel actual = new DecimalCalcModel();
+            expected.setValue(value);
+            actual.setValue(value);
+
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.getValue(), actual.getValue());
+        }
+        DecimalCalcModel model = new DecimalCalcModel();
+        model.setValue(1e-5);
+        assertEquals(5, model.getDecimal().scale());
+    }
+
+    @Test
+    public void chainedOperationsStayExact() {
+        DecimalCalcModel model = run(new DecimalCalcModel(), "0.1 * 3 - 0.3 =");
+
+        assertEquals(0, model.getDecimal().signum());
+        assertEquals(0.0, model.getValue());
+    }
+}
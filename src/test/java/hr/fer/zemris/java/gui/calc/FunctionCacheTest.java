@@ -0,0 +1,87 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class FunctionCacheTest {
+
+    @Test
+    public void repeatedArgumentsHit() {
+        AtomicInteger calls = new AtomicInteger();
+        FunctionCache cache = new FunctionCache(x -> { calls.incrementAndGet(); return Math.sin(x); }, 64);
+
+        for(int round = 0; round < 3; round++) {
+            for(int i = 0; i < 10; i++)
+                assertEquals(Math.sin(i), cache.applyAsDouble(i));
+        }
+
+        assertEquals(10, calls.get());
+        assertEquals(20, cache.getHitCount());
+        assertEquals(10, cache.getMissCount());
+        assertEquals(2. / 3, cache.getHitRate(), 1E-12);
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitRate());
+    }
+
+    @Test
+    public void argumentsAreKeyedByBits() {
+        FunctionCache cache = new FunctionCache(x -> 1 / x, 16);
+
+        assertEquals(Double.POSITIVE_INFINITY, cache.applyAsDouble(0.));
+        assertEquals(Double.NEGATIVE_INFINITY, cache.applyAsDouble(-0.));
+        assertTrue(Double.isNaN(cache.applyAsDouble(Double.NaN)));
+        assertTrue(Double.isNaN(cache.applyAsDouble(Double.NaN)));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void capacityIsBoundedAndReferencedEntriesSurvive() {
+        FunctionCache cache = new FunctionCache(Math::sqrt, 100);
+        assertEquals(128, cache.capacity());
+
+        cache.applyAsDouble(-1);
+        for(int i = 0; i < 100_000; i++) {
+            cache.applyAsDouble(i);
+            assertTrue(Double.isNaN(cache.applyAsDouble(-1)));
+        }
+        assertEquals(100_000, cache.getHitCount());
+        assertEquals(100_001, cache.getMissCount());
+        assertThrows(IllegalArgumentException.class, () -> new FunctionCache(Math::sin, 0));
+    }
+
+    @Test
+    public void concurrentLookupsReturnCorrectResults() {
+        FunctionCache cache = new FunctionCache(x -> x * 3, 32);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            pool.submit(() -> IntStream.range(0, 400_000).parallel().forEach(i -> {
+                double x = i % 97;
+                assertEquals(3 * x, cache.applyAsDouble(x));
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(400_000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    public void sessionCachesFunctions() {
+        CalcSession session = new CalcSession();
+        session.setFunctionCacheCapacity(16);
+        assertNull(session.getFunctionCache(CalcFunction.NEXT_PRIME));
+
+        for(int i = 0; i < 3; i++) {
+            session.getModel().setValue(0.5);
+            session.applyFunction(CalcFunction.SIN);
+            assertEquals(Math.sin(0.5), session.getModel().getValue());
+        }
+        assertEquals(2, session.getFunctionCache(CalcFunction.SIN).getHitCount());
+
+        session.setFunctionCacheCapacity(0);
+        assertNull(session.getFunctionCache(CalcFunction.SIN));
+    }
+}
@@ -0,0 +1,90 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class RpnStackTest {
+
+    @Test
+    public void pushPopAndGrowth() {
+        RpnStack stack = new RpnStack();
+        for(int i = 0; i < 1000; i++)
+            stack.push(i);
+
+        assertEquals(1000, stack.size());
+        assertEquals(999, stack.peek());
+        assertEquals(997, stack.peek(2));
+        for(int i = 999; i >= 0; i--)
+            assertEquals(i, stack.pop());
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void emptyStackDoesNotThrow() {
+        RpnStack stack = new RpnStack();
+
+        assertTrue(Double.isNaN(stack.pop()));
+        assertTrue(Double.isNaN(stack.peek()));
+        assertTrue(Double.isNaN(stack.peek(-1)));
+        assertFalse(stack.dup());
+        assertFalse(stack.apply(CalcFunction.SIN));
+        stack.push(1);
+        assertFalse(stack.swap());
+        assertFalse(stack.apply(CalcOperator.ADD));
+        stack.push(2);
+        assertFalse(stack.rotate());
+        assertEquals("[1.0, 2.0]", stack.toString());
+    }
+
+    @Test
+    public void stackOperations() {
+        RpnStack stack = new RpnStack();
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+
+        assertTrue(stack.rotate());
+        assertEquals("[2.0, 3.0, 1.0]", stack.toString());
+        assertTrue(stack.swap());
+        assertEquals("[2.0, 1.0, 3.0]", stack.toString());
+        assertTrue(stack.dup());
+        assertTrue(stack.apply(CalcOperator.MULTIPLY));
+        assertTrue(stack.apply(CalcOperator.SUBTRACT));
+        assertEquals("[2.0, -8.0]", stack.toString());
+        assertTrue(stack.apply(CalcOperator.POWER));
+        assertEquals(1. / 256, stack.peek());
+        assertTrue(stack.apply(CalcFunction.RECIPROCAL));
+        assertEquals(256, stack.pop());
+        stack.push(5);
+        stack.clear();
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void failedOperationKeepsOperands() {
+        RpnStack stack = new RpnStack();
+        stack.push(1);
+        stack.push(2);
+
+        assertThrows(ArithmeticException.class, () -> stack.apply((a, b) -> {
+            throw new ArithmeticException();
+        }));
+        assertEquals("[1.0, 2.0]", stack.toString());
+    }
+
+    @Test
+    public void sessionUsesStack() {
+        CalcSession session = new CalcSession();
+        session.getModel().setValue(4);
+        session.push();
+        session.getStack().dup();
+        session.getStack().apply(CalcOperator.ADD);
+        session.pop();
+
+        assertEquals(8, session.getModel().getValue());
+        assertTrue(session.getStack().isEmpty());
+        session.pop();
+        assertEquals(8, session.getModel().getValue());
+    }
+}
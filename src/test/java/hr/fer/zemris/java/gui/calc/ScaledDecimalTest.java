@@ -0,0 +1,72 @@
+package hr.fer.zemris.java.gui.calc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ScaledDecimalTest {
+
+    @Test
+    public void arithmeticMatchesBigDecimal() {
+        Random random = new Random(42);
+        MathContext mc = MathContext.DECIMAL128;
+        for (int i = 0; i < 20_000; i++) {
+            ScaledDecimal a = random(random);
+            ScaledDecimal b = random(random);
+            BigDecimal x = a.toBigDecimal();
+            BigDecimal y = b.toBigDecimal();
+
+            assertEquals(0, x.add(y).compareTo(a.add(b).toBigDecimal()), a + " + " + b);
+            assertEquals(0, x.subtract(y).compareTo(a.subtract(b).toBigDecimal()), a + " - " + b);
+            assertEquals(0, x.multiply(y).compareTo(a.multiply(b).toBigDecimal()), a + " * " + b);
+            if (b.signum() != 0) {
+                assertEquals(0, x.divide(y, mc).compareTo(a.divide(b, mc).toBigDecimal()), a + " / " + b);
+            }
+            assertEquals(x.doubleValue(), a.doubleValue());
+            assertEquals(x.toPlainString(), a.toString());
+        }
+    }
+
+    private static ScaledDecimal random(Random random) {
+        long unscaled;
+        switch (random.nextInt(4)) {
+            case 0: unscaled = random.nextInt(1000) - 500; break;
+            case 1: unscaled = random.nextLong(); break;
+            case 2: unscaled = random.nextBoolean() ? Long.MAX_VALUE : Long.MIN_VALUE; break;
+            default: unscaled = random.nextInt(); break;
+        }
+        return ScaledDecimal.of(unscaled, random.nextInt(22));
+    }
+
+    @Test
+    public void staysCompactWhileValuesFit() {
+        ScaledDecimal a = ScaledDecimal.parse("0.1");
+        ScaledDecimal b = ScaledDecimal.parse("0.2");
+
+        assertTrue(a.add(b).isCompact());
+        assertEquals("0.3", a.add(b).toString());
+        assertFalse(ScaledDecimal.of(Long.MAX_VALUE, 0).add(ScaledDecimal.of(1, 0)).isCompact());
+        assertEquals("9223372036854775808", ScaledDecimal.of(Long.MAX_VALUE, 0).add(ScaledDecimal.of(1, 0)).toString());
+    }
+
+    @Test
+    public void equalityIsNumerical() {
+        assertEquals(ScaledDecimal.parse("1.0"), ScaledDecimal.parse("1.00"));
+        assertEquals(ScaledDecimal.parse("1.0").hashCode(), ScaledDecimal.parse("1.00").hashCode());
+        assertEquals("1.00", ScaledDecimal.parse("1.00").toString());
+        assertEquals("-0.005", ScaledDecimal.of(-5, 3).toString());
+    }
+
+    @Test
+    public void roundsToPrecision() {
+        ScaledDecimal third = ScaledDecimal.of(1, 0).divide(ScaledDecimal.of(3, 0), MathContext.DECIMAL32);
+
+        assertEquals("0.3333333", third.toString());
+        assertEquals("123.5", ScaledDecimal.parse("123.456").round(new MathContext(4)).toString());
+        assertThrows(ArithmeticException.class,
+            () -> ScaledDecimal.of(1, 0).divide(ScaledDecimal.of(3, 0), MathContext.UNLIMITED));
+    }
+}
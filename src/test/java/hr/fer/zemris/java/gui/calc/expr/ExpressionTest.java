@@ -0,0 +1,130 @@
+package hr.fer.zemris.java.gui.calc.expr;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import hr.fer.zemris.java.gui.calc.CalcSession;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionTest {
+
+    private static double eval(String source) {
+        return Expression.compile(source).evaluate();
+    }
+
+    @Test
+    public void precedenceAndAssociativity() {
+        assertEquals(14, eval("2 + 3 * 4"));
+        assertEquals(20, eval("(2 + 3) * 4"));
+        assertEquals(1, eval("8 - 4 - 3"));
+        assertEquals(2, eval("16 / 4 / 2"));
+        assertEquals(512, eval("2 ^ 3 ^ 2"));
+        assertEquals(-4, eval("-2 ^ 2"));
+        assertEquals(0.5, eval("2 ^ -1"));
+        assertEquals(3, eval("--3"));
+        assertEquals(1500, eval("1.5e3"));
+    }
+
+    @Test
+    public void functionsAndAliases() {
+        assertEquals(1, eval("sin(pi / 2)"), 1E-12);
+        assertEquals(1, eval("ctg(pi / 4)"), 1E-12);
+        assertEquals(3, eval("log(1000)"), 1E-12);
+        assertEquals(100, eval("exp10(2)"), 1E-12);
+        assertEquals(1, eval("ln(e)"), 1E-12);
+        assertEquals(Math.exp(2), eval("exp(2)"), 1E-12);
+        assertEquals(0.25, eval("recip(4)"));
+        assertEquals(3, eval("root(27, 3)"), 1E-12);
+        assertEquals(1024, eval("pow(2, 10)"));
+        assertEquals(101, eval("prime(100)"));
+    }
+
+    @Test
+    public void variablesAreBoundAtEvaluation() {
+        Expression e = Expression.compile("x ^ 2 + 2 * x * y + y ^ 2", "x", "y");
+
+        assertEquals(25, e.evaluate(2, 3));
+        assertEquals(0, e.evaluate(-1, 1));
+        double[] stack = new double[e.getMaxDepth()];
+        assertEquals(100, e.evaluate(new double[] {4, 6}, stack));
+        assertThrows(IllegalArgumentException.class, () -> e.evaluate(1));
+    }
+
+    @Test
+    public void constantSubexpressionsAreFolded() {
+        Expression e = Expression.compile("x * (2 + 3 * sin(0)) - -(4 / 2)", "x");
+
+        assertEquals("var x\nconst 2.0\nmul\nconst -2.0\nsub\n", e.disassemble());
+        assertEquals(12, e.evaluate(5));
+        assertEquals("const 14.0\n", Expression.compile("2 + 3 * 4").disassemble());
+    }
+
+    @Test
+    public void invalidExpressionsThrow() {
+        for (String source : new String[] {"", "2 +", "(1", "1)", "foo(1)", "sin 1", "2 3", "x", "1..2",
+                "root(1)", "2 ** 3"}) {
+            assertThrows(ExpressionException.class, () -> Expression.compile(source), source);
+        }
+    }
+
+    @Test
+    public void compiledCodeMatchesInterpreter() {
+        String[] sources = {"x ^ 2 + 2 * x * y + y ^ 2", "-x / y - root(x, 3)", "sin(x) * cos(y) + tan(x) - log(y)",
+            "arcsin(x / 10) + arccos(x / 10) + arctan(y) + ln(y)", "ctg(x) + arcctg(y) + exp10(x) + exp(y) + recip(y)",
+            "prime(x * y) - pow(y, x)"};
+        double[][] values = {{2, 3}, {-1.5, 0.25}, {0, 7}, {1E-3, 1E3}};
+
+        for(String source : sources) {
+            Expression e = Expression.compile(source, "x", "y");
+            double[] expected = new double[values.length];
+            for(int i = 0; i < values.length; i++)
+                expected[i] = e.evaluate(values[i]);
+
+            assertTrue(e.promote(), source);
+            assertTrue(e.isCompiled());
+            for(int i = 0; i < values.length; i++)
+                assertEquals(expected[i], e.evaluate(values[i]), source);
+        }
+    }
+
+    @Test
+    public void expressionIsCompiledAfterThreshold() {
+        Expression e = Expression.compile("x + 1", "x");
+        double[] values = new double[1];
+        double[] stack = new double[e.getMaxDepth()];
+
+        for(int i = 1; i < Expression.COMPILE_THRESHOLD; i++)
+            e.evaluate(values, stack);
+        assertFalse(e.isCompiled());
+        e.evaluate(values, stack);
+        assertTrue(e.isCompiled());
+        values[0] = 41;
+        assertEquals(42, e.evaluate(values, stack));
+    }
+
+    @Test
+    public void manyVariablesAndConstantsCompile() {
+        String[] names = new String[300];
+        StringBuilder source = new StringBuilder("0");
+        double expected = 0;
+        double[] values = new double[names.length];
+        for(int i = 0; i < names.length; i++) {
+            names[i] = "v" + i;
+            values[i] = i;
+            source.append(" + ").append(names[i]).append(" * ").append(i + 0.5);
+            expected += i * (i + 0.5);
+        }
+        Expression e = Expression.compile(source.toString(), names);
+
+        assertTrue(e.promote());
+        assertEquals(expected, e.evaluate(values));
+    }
+
+    @Test
+    public void sessionStoresResult() {
+        CalcSession session = new CalcSession();
+        session.evaluate(Expression.compile("r ^ 2 * pi", "r"), 2);
+
+        assertEquals(4 * Math.PI, session.getModel().getValue(), 1E-12);
+        assertFalse(session.getModel().isEditable());
+    }
+}
@@ -0,0 +1,145 @@
+package hr.fer.zemris.java.gui.layouts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import org.junit.jupiter.api.Test;
+
+public class CalcLayoutTest {
+
+    private static JLabel label(int width, int height) {
+        JLabel l = new JLabel("");
+        l.setPreferredSize(new Dimension(width, height));
+        return l;
+    }
+
+    @Test
+    public void preferredSize() {
+        JPanel p = new JPanel(new CalcLayout(2));
+        p.add(label(10, 30), new RCPosition(2, 2));
+        p.add(label(20, 15), new RCPosition(3, 3));
+
+        assertEquals(new Dimension(152, 158), p.getPreferredSize());
+    }
+
+    @Test
+    public void preferredSizeWithSpanningComponent() {
+        JPanel p = new JPanel(new CalcLayout(2));
+        p.add(label(108, 15), new RCPosition(1, 1));
+        p.add(label(16, 30), new RCPosition(3, 3));
+
+        assertEquals(new Dimension(152, 158), p.getPreferredSize());
+    }
+
+    @Test
+    public void cachedSizeIsRecomputedAfterInvalidation() {
+        JPanel p = new JPanel(new CalcLayout(0));
+        JLabel l = label(10, 10);
+        p.add(l, "2, 2");
+        assertEquals(new Dimension(70, 50), p.getPreferredSize());
+
+        l.setPreferredSize(new Dimension(20, 10));
+        p.invalidate();
+
+        assertEquals(new Dimension(140, 50), p.getPreferredSize());
+    }
+
+    @Test
+    public void layoutSpreadsSpaceEvenly() {
+        JPanel p = new JPanel(new CalcLayout(3));
+        JLabel display = label(10, 10);
+        JLabel first = label(10, 10);
+        JLabel last = label(10, 10);
+        p.add(display, "1, 1");
+        p.add(first, "2, 1");
+        p.add(last, "5, 7");
+        p.setSize(7 * 30 + 6 * 3 + 4, 5 * 20 + 4 * 3 + 2);
+
+        p.doLayout();
+
+        assertEquals(new Rectangle(0, 0, 5 * 30 + 4 * 3 + 2, 20), display.getBounds());
+        assertEquals(new Rectangle(0, 23, 30, 20), first.getBounds());
+        Rectangle bounds = last.getBounds();
+        assertEquals(p.getWidth(), bounds.x + bounds.width);
+        assertEquals(p.getHeight(), bounds.y + bounds.height);
+        assertTrue(bounds.width == 30 || bounds.width == 31);
+    }
+
+    @Test
+    public void invalidPositionsThrow() {
+        JPanel p = new JPanel(new CalcLayout());
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), "0, 1"));
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), "6, 1"));
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), "1, 8"));
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), "1, 3"));
+    }
+
+    @Test
+    public void occupiedPositionThrows() {
+        JPanel p = new JPanel(new CalcLayout());
+        p.add(label(1, 1), "2, 2");
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), new RCPosition(2, 2)));
+    }
+
+    @Test
+    public void removedComponentFreesPosition() {
+        JPanel p = new JPanel(new CalcLayout());
+        JLabel l = label(1, 1);
+        p.add(l, "2, 2");
+        p.remove(l);
+
+        assertDoesNotThrow(() -> p.add(label(1, 1), "2, 2"));
+    }
+
+    @Test
+    public void customGridWithSpans() {
+        JPanel p = new JPanel(new CalcLayout(10, 12, 2));
+        JLabel wide = label(10, 10);
+        JLabel block = label(10, 10);
+        p.add(wide, new RCPosition(1, 1, 1, 12));
+        p.add(block, "9, 11, 2, 2");
+        p.add(label(10, 10), "2, 1");
+        p.setSize(12 * 10 + 11 * 2, 10 * 10 + 9 * 2);
+
+        p.doLayout();
+
+        assertEquals(new Rectangle(0, 0, p.getWidth(), 10), wide.getBounds());
+        assertEquals(new Rectangle(120, 96, 22, 22), block.getBounds());
+    }
+
+    @Test
+    public void preferredSizeOfCustomGrid() {
+        JPanel p = new JPanel(new CalcLayout(3, 4, 2));
+        p.add(label(22, 10), new RCPosition(1, 1, 2, 2));
+
+        assertEquals(new Dimension(4 * 10 + 3 * 2, 3 * 4 + 2 * 2), p.getPreferredSize());
+    }
+
+    @Test
+    public void overlappingSpansThrow() {
+        JPanel p = new JPanel(new CalcLayout(4, 4, 0));
+        p.add(label(1, 1), "2, 2, 2, 2");
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), "3, 3"));
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), "1, 1, 2, 2"));
+        assertThrows(CalcLayoutException.class, () -> p.add(label(1, 1), "4, 4, 1, 2"));
+        assertDoesNotThrow(() -> p.add(label(1, 1), "1, 1, 1, 4"));
+    }
+
+    @Test
+    public void removingSpanningComponentFreesCells() {
+        JPanel p = new JPanel(new CalcLayout(4, 4, 0));
+        JLabel first = label(1, 1);
+        JLabel second = label(1, 1);
+        p.add(first, "1, 1, 2, 2");
+        p.add(second, "4, 4");
+        p.remove(first);
+        p.setSize(40, 40);
+        p.doLayout();
+
+        assertDoesNotThrow(() -> p.add(label(1, 1), "2, 2"));
+        assertEquals(new Rectangle(30, 30, 10, 10), second.getBounds());
+    }
+}
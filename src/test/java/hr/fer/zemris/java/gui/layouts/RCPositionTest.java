@@ -0,0 +1,38 @@
+package hr.fer.zemris.java.gui.layouts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class RCPositionTest {
+
+    @Test
+    public void ofReturnsSharedInstances() {
+        assertSame(RCPosition.of(2, 3), RCPosition.of(2, 3));
+        assertSame(RCPosition.of(2, 3), RCPosition.of(2, 3, 1, 1));
+        assertEquals(new RCPosition(200, 300), RCPosition.of(200, 300));
+    }
+
+    @Test
+    public void parse() {
+        assertSame(RCPosition.of(2, 3), RCPosition.parse("2,3"));
+        assertSame(RCPosition.of(2, 3), RCPosition.parse(" 2 , 3 "));
+        assertEquals(new RCPosition(1, 1, 2, 5), RCPosition.parse("1, 1, 2, 5"));
+        assertEquals(new RCPosition(123, 4567), RCPosition.parse("123,4567"));
+    }
+
+    @Test
+    public void invalidTextThrows() {
+        for (String text : new String[] {"", "1", "1,", ",1", "1,,2", "1;2", "-1,2", "1,2,3",
+                "1,2,3,4,5", "1 2", "1,2x", "99999999999,1", "1,2,0,1"}) {
+            assertThrows(CalcLayoutException.class, () -> RCPosition.parse(text), text);
+        }
+    }
+
+    @Test
+    public void equalPositionsHaveEqualHashes() {
+        assertEquals(new RCPosition(3, 4, 2, 1).hashCode(), RCPosition.parse("3,4,2,1").hashCode());
+        assertNotEquals(RCPosition.of(1, 2).hashCode(), RCPosition.of(2, 1).hashCode());
+        assertNotEquals(new RCPosition(1, 2), new RCPosition(1, 2, 1, 2));
+    }
+}
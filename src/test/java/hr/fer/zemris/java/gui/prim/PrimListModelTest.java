@@ -0,0 +1,104 @@
+package hr.fer.zemris.java.gui.prim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PrimListModelTest {
+
+    private PrimListModel model;
+
+    private List<ListDataEvent> events;
+
+    @BeforeEach
+    public void setup() {
+        model = new PrimListModel();
+        events = new ArrayList<>();
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add(e);
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                fail();
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                fail();
+            }
+        });
+    }
+
+    @Test
+    public void modelStartsWithOneAndAddsPrimes() {
+        model.next();
+        model.next();
+        model.next();
+
+        assertEquals(4, model.getSize());
+        assertEquals(1, model.getElementAt(0));
+        assertEquals(2, model.getElementAt(1));
+        assertEquals(5, model.getElementAt(3));
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    public void nextBatchFiresSingleEvent() {
+        model.next();
+        model.nextBatch(1000);
+
+        assertEquals(1002, model.getSize());
+        assertEquals(7919, model.getElementAt(1000));
+        assertEquals(2, events.size());
+        assertEquals(2, events.get(1).getIndex0());
+        assertEquals(1001, events.get(1).getIndex1());
+    }
+
+    @Test
+    public void nextBatchAsyncAddsPrimesInBatches() throws Exception {
+        model.nextBatchAsync(200_000).get(30, TimeUnit.SECONDS);
+        SwingUtilities.invokeAndWait(() -> {});
+
+        assertEquals(200_001, model.getSize());
+        assertEquals(2750159, model.getElementAt(200_000));
+        assertTrue(events.size() > 1 && events.size() < 10);
+        assertEquals(200_000, events.get(events.size() - 1).getIndex1());
+    }
+
+    @Test
+    public void getIntAtMatchesElements() {
+        model.nextBatch(70_000);
+
+        for(int i = 0; i < model.getSize(); i += 997) {
+            assertEquals(model.getElementAt(i), model.getIntAt(i));
+        }
+        assertEquals(882_377, model.getIntAt(70_000));
+        assertSame(model.getElementAt(70_000), model.getElementAt(70_000));
+    }
+
+    @Test
+    public void oversizedBatchThrows() {
+        model.next();
+
+        assertThrows(IllegalArgumentException.class, () -> model.nextBatch(Integer.MAX_VALUE - 1));
+        assertThrows(IllegalArgumentException.class, () -> model.nextBatchAsync(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> model.nextBatch(-1));
+        assertEquals(2, model.getSize());
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void elementOutOfBoundsThrows() {
+        assertThrows(IndexOutOfBoundsException.class, () -> model.getElementAt(1));
+    }
+}
@@ -0,0 +1,67 @@
+package hr.fer.zemris.java.gui.prim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+
+public class PrimalityTest {
+
+    @Test
+    public void matchesSieveForSmallNumbers() {
+        PrimeSieve sieve = new PrimeSieve();
+        int index = 0;
+        for(int n = -5; n < 2_000_000; n++) {
+            boolean prime = n >= 2 && sieve.get(index) == n;
+            if(prime)
+                index++;
+            assertEquals(prime, Primality.isPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    public void largePrimes() {
+        assertTrue(Primality.isPrime(2_147_483_647L));
+        assertTrue(Primality.isPrime((1L << 61) - 1));
+        assertTrue(Primality.isPrime(Long.MAX_VALUE - 24));
+        assertTrue(Primality.isPrime(1_000_000_000_000_000_003L));
+    }
+
+    @Test
+    public void strongPseudoprimesAreComposite() {
+        assertFalse(Primality.isPrime(3_215_031_751L));
+        assertFalse(Primality.isPrime(3_825_123_056_546_413_051L));
+        assertFalse(Primality.isPrime(4_759_123_141L));
+        assertFalse(Primality.isPrime(Long.MAX_VALUE));
+        assertFalse(Primality.isPrime(2_147_483_647L * 2_147_483_629L));
+    }
+
+    @Test
+    public void bigIntegers() {
+        assertTrue(Primality.isPrime(BigInteger.TWO.pow(89).subtract(BigInteger.ONE)));
+        assertFalse(Primality.isPrime(BigInteger.TWO.pow(67).subtract(BigInteger.ONE)));
+        assertTrue(Primality.isPrime(BigInteger.valueOf(7919)));
+    }
+
+    @Test
+    public void nextPrime() {
+        assertEquals(2, Primality.nextPrime(-10));
+        assertEquals(2, Primality.nextPrime(2));
+        assertEquals(3, Primality.nextPrime(3));
+        assertEquals(7927, Primality.nextPrime(7920));
+        assertEquals(1_000_000_000_000_000_003L, Primality.nextPrime(1_000_000_000_000_000_000L));
+        assertThrows(ArithmeticException.class, () -> Primality.nextPrime(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void modelJumpsToPrime() {
+        PrimListModel model = new PrimListModel();
+
+        int index = model.jumpTo(7920);
+
+        assertEquals(1001, index);
+        assertEquals(7927, model.getIntAt(index));
+        assertEquals(index + 1, model.getSize());
+        assertEquals(3, model.jumpTo(4));
+    }
+}
@@ -0,0 +1,78 @@
+package hr.fer.zemris.java.gui.prim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PrimeCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private Path saveSieve(int count) throws IOException {
+        PrimeSieve sieve = new PrimeSieve();
+        sieve.ensureCount(count);
+        Path file = dir.resolve("primes.bin");
+        PrimeCache.save(file, sieve);
+        return file;
+    }
+
+    @Test
+    public void loadedSieveServesCachedPrimesAndContinues() throws IOException {
+        Path file = saveSieve(100_000);
+
+        PrimeSieve loaded = PrimeCache.load(file);
+        PrimeSieve fresh = new PrimeSieve();
+
+        assertTrue(loaded.size() >= 100_000);
+        for(int i = 0; i < 200_000; i += 101) {
+            assertEquals(fresh.get(i), loaded.get(i));
+        }
+        assertEquals(fresh.get(199_999), loaded.get(199_999));
+    }
+
+    @Test
+    public void loadedFileCanBeReplaced() throws IOException {
+        Path file = saveSieve(10_000);
+        PrimeSieve loaded = PrimeCache.load(file);
+        loaded.ensureCount(20_000);
+
+        PrimeCache.save(file, loaded);
+
+        assertEquals(loaded.size(), PrimeCache.load(file).size());
+        assertEquals(loaded.get(15_000), PrimeCache.load(file).get(15_000));
+    }
+
+    @Test
+    public void missingFileStartsFromBeginning() {
+        PrimeSieve sieve = PrimeCache.load(dir.resolve("missing.bin"));
+
+        assertEquals(2, sieve.get(0));
+        assertEquals(7919, sieve.nthPrime(1000));
+    }
+
+    @Test
+    public void truncatedFileIsIgnored() throws IOException {
+        Path file = saveSieve(10_000);
+        try(RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        assertEquals(1, PrimeCache.load(file).size());
+    }
+
+    @Test
+    public void corruptedFileIsIgnored() throws IOException {
+        Path file = saveSieve(10_000);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        assertEquals(1, PrimeCache.load(file).size());
+    }
+}
@@ -0,0 +1,80 @@
+package hr.fer.zemris.java.gui.prim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class PrimeSieveTest {
+
+    private static boolean isPrime(int p) {
+        if(p < 2)
+            return false;
+        for(int i = 2; (long) i * i <= p; i++) {
+            if(p % i == 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Test
+    public void matchesTrialDivisionAcrossSegments() {
+        PrimeSieve sieve = new PrimeSieve();
+        int expected = 1;
+        for(int i = 0; i < 20000; i++) {
+            do {
+                expected++;
+            } while(!isPrime(expected));
+            assertEquals(expected, sieve.get(i));
+        }
+    }
+
+    @Test
+    public void nthPrime() {
+        PrimeSieve sieve = new PrimeSieve();
+
+        assertEquals(2, sieve.nthPrime(1));
+        assertEquals(7919, sieve.nthPrime(1000));
+        assertEquals(15485863, sieve.nthPrime(1_000_000));
+        assertEquals(104729, sieve.nthPrime(10000));
+    }
+
+    @Test
+    public void invalidOrdinalThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new PrimeSieve().nthPrime(0));
+    }
+
+    @Test
+    public void parallelSieveMatchesSequentialSieve() {
+        ForkJoinPool sequentialPool = new ForkJoinPool(1);
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+        try {
+            PrimeSieve sequential = new PrimeSieve(sequentialPool);
+            PrimeSieve parallel = new PrimeSieve(parallelPool);
+
+            assertEquals(32452843, parallel.nthPrime(2_000_000));
+            for(int i = 0; i < 2_000_000; i += 1009) {
+                assertEquals(sequential.get(i), parallel.get(i));
+            }
+        } finally {
+            sequentialPool.shutdown();
+            parallelPool.shutdown();
+        }
+    }
+
+    @Test
+    public void countPrimes() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(0, PrimeSieve.countPrimes(1, pool));
+            assertEquals(1, PrimeSieve.countPrimes(2, pool));
+            assertEquals(2, PrimeSieve.countPrimes(3, pool));
+            assertEquals(4, PrimeSieve.countPrimes(10, pool));
+            assertEquals(25, PrimeSieve.countPrimes(100, pool));
+            assertEquals(664579, PrimeSieve.countPrimes(10_000_000, pool));
+            assertEquals(5761455, PrimeSieve.countPrimes(100_000_000, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}